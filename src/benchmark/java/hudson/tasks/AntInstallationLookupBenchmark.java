@@ -0,0 +1,76 @@
+package hudson.tasks;
+
+import hudson.BulkChange;
+import hudson.tasks.Ant.AntInstallation;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures finding an {@link AntInstallation} by name, as done by every Ant build step and {@link AntWrapper}:
+ * copying and scanning {@link Ant.DescriptorImpl#getInstallations} as it used to be, against {@link Ant.DescriptorImpl#getInstallation}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AntInstallationLookupBenchmark {
+
+    /** Installations configured on the controller, e.g. one per Ant version and JDK. */
+    @Param({"10", "100", "500"})
+    public int installations;
+
+    private Ant.DescriptorImpl descriptor;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        descriptor = new Ant.DescriptorImpl(Ant.class) {};
+        AntInstallation[] all = new AntInstallation[installations];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = new AntInstallation("ant-1.10." + (i % 16) + "-jdk" + i, "/opt/ant/" + i, Collections.emptyList());
+        }
+        // no Jenkins to save the configuration to
+        BulkChange bc = new BulkChange(descriptor);
+        try {
+            descriptor.setInstallations(all);
+        } finally {
+            bc.abort();
+        }
+        names = new String[1024];
+        Random random = new Random(42);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = all[random.nextInt(all.length)].getName();
+        }
+    }
+
+    private String nextName() {
+        next = (next + 1) & (names.length - 1);
+        return names[next];
+    }
+
+    @Benchmark
+    public AntInstallation scan() {
+        String name = nextName();
+        for (AntInstallation i : descriptor.getInstallations()) {
+            if (name.equals(i.getName())) {
+                return i;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public AntInstallation indexed() {
+        return descriptor.getInstallation(nextName());
+    }
+}
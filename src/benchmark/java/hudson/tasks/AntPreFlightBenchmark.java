@@ -0,0 +1,166 @@
+package hudson.tasks;
+
+import hudson.remoting.Callable;
+import hudson.remoting.VirtualChannel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import jenkins.security.MasterToSlaveCallable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the checks {@link Ant#perform} makes on the node before launching Ant, over a channel with a fixed latency:
+ * one call per check as it used to be, against the single {@link Ant.PreFlight} call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AntPreFlightBenchmark {
+
+    /** One-way latency of the channel. */
+    @Param({"1", "10", "50"})
+    public int latencyMillis;
+
+    /** Whether the build file is relative to the module root, or only found relative to the workspace. */
+    @Param({"moduleRoot", "workspace"})
+    public String layout;
+
+    private Path dir;
+    private VirtualChannel channel;
+    private String home;
+    private String buildFile;
+    private String buildFile2;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ant-preflight");
+        home = dir.resolve("ant").toString();
+        Files.createDirectories(dir.resolve("ant/bin"));
+        Files.createFile(dir.resolve("ant/bin/ant"));
+        Files.createFile(dir.resolve("ant/bin/ant.bat"));
+        Files.createDirectories(dir.resolve("ws/module"));
+        Files.createFile(dir.resolve(layout.equals("moduleRoot") ? "ws/module/build.xml" : "ws/build.xml"));
+        buildFile = dir.resolve("ws/module/build.xml").toString();
+        buildFile2 = dir.resolve("ws/build.xml").toString();
+        channel = new LatencyChannel(latencyMillis);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public boolean separateCalls() throws Exception {
+        String exe = channel.call(new FindExecutable(home));
+        boolean found = channel.call(new Exists(buildFile)) || channel.call(new Exists(buildFile2));
+        return exe != null && found;
+    }
+
+    @Benchmark
+    public boolean preFlight() throws Exception {
+        Ant.PreFlight.Result r = channel.call(new Ant.PreFlight(home, buildFile, buildFile2));
+        return r.executable != null && r.buildFile >= 0;
+    }
+
+    private static final class FindExecutable extends MasterToSlaveCallable<String, IOException> {
+        private final String home;
+
+        FindExecutable(String home) {
+            this.home = home;
+        }
+
+        @Override
+        public String call() {
+            return Ant.AntInstallation.findExecutable(home);
+        }
+    }
+
+    private static final class Exists extends MasterToSlaveCallable<Boolean, IOException> {
+        private final String path;
+
+        Exists(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public Boolean call() {
+            return new File(path).exists();
+        }
+    }
+
+    /**
+     * Runs callables in this JVM after serializing them, and the result, the way remoting does, waiting the latency
+     * on the way to the node and again on the way back.
+     */
+    private static final class LatencyChannel implements VirtualChannel {
+        private final long latency;
+
+        LatencyChannel(long latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V, T extends Throwable> V call(Callable<V, T> callable) throws IOException, T, InterruptedException {
+            Callable<V, T> remote = (Callable<V, T>) copy(callable);
+            Thread.sleep(latency);
+            V result = remote.call();
+            Thread.sleep(latency);
+            return (V) copy(result);
+        }
+
+        private static Object copy(Object o) throws IOException {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(buf)) {
+                out.writeObject(o);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+                return in.readObject();
+            } catch (ClassNotFoundException x) {
+                throw new IOException(x);
+            }
+        }
+
+        @Override
+        public <V, T extends Throwable> Future<V> callAsync(Callable<V, T> callable) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public void join() {}
+
+        @Override
+        public void join(long timeout) {}
+
+        @Override
+        public <T> T export(Class<T> type, T instance) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void syncLocalIO() {}
+    }
+}
@@ -0,0 +1,69 @@
+package hudson.tasks._ant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link AntConsoleAnnotator} per line of Ant output.
+ * {@link #log} reports throughput and, with the GC profiler, {@code gc.alloc.rate.norm} in bytes per line;
+ * {@link #line} reports the latency distribution including p99.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AntConsoleAnnotatorBenchmark {
+
+    private static final int LINES = 10_000;
+
+    @Param({"40", "120", "2000"})
+    public int lineLength;
+
+    @Param({"UTF-8", "ISO-8859-1", "UTF-16"})
+    public String charset;
+
+    /** One target starts every this many lines. */
+    @Param({"5", "50", "1000"})
+    public int targetEvery;
+
+    private Charset cs;
+    private byte[][] lines;
+    private byte[] log;
+    private AntConsoleAnnotator annotator;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cs = Charset.forName(charset);
+        lines = AntLogs.lines(LINES, lineLength, targetEvery, cs);
+        log = AntLogs.concat(lines);
+        annotator = new AntConsoleAnnotator(OutputStream.nullOutputStream(), cs, AntLogs.NOTES, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void log() throws IOException {
+        AntConsoleAnnotator a = new AntConsoleAnnotator(OutputStream.nullOutputStream(), cs, AntLogs.NOTES, null);
+        a.write(log);
+        a.forceEol();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void line() throws IOException {
+        annotator.write(lines[next]);
+        next = (next + 1) % lines.length;
+    }
+}
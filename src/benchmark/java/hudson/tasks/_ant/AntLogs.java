@@ -0,0 +1,83 @@
+package hudson.tasks._ant;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates Ant console output resembling a real multi-target build.
+ */
+final class AntLogs {
+
+    private static final String[] TASK_LINES = {
+        "    [javac] Compiling 214 source files to /home/jenkins/workspace/core/build/classes",
+        "    [javac] /home/jenkins/workspace/core/src/main/java/org/example/core/Registry.java:118: warning: [unchecked] unchecked conversion",
+        "     [copy] Copying 12 files to /home/jenkins/workspace/core/build/classes",
+        "    [junit] Tests run: 38, Failures: 0, Errors: 0, Skipped: 1, Time elapsed: 4.217 sec",
+        "      [jar] Building jar: /home/jenkins/workspace/core/dist/core-2.4.1-SNAPSHOT.jar",
+        "     [echo] Using properties from /home/jenkins/workspace/core/build.properties",
+    };
+
+    /** Notes of roughly the size of real serialized, signed, and Base64-encoded console notes. */
+    static final byte[][] NOTES = {note(180), note(188), note(188)};
+
+    private AntLogs() {}
+
+    /**
+     * Returns {@code count} lines, each terminated by a newline, where every {@code targetEvery}-th line starts a new target.
+     */
+    static byte[][] lines(int count, int lineLength, int targetEvery, Charset charset) {
+        List<byte[]> lines = new ArrayList<>(count);
+        lines.add(line("Buildfile: /home/jenkins/workspace/core/build.xml", charset));
+        int target = 0;
+        while (lines.size() < count - 3) {
+            if (lines.size() % targetEvery == 0) {
+                lines.add(line("", charset));
+                lines.add(line("module-" + (target++ % 40) + ":", charset));
+            } else {
+                lines.add(line(pad(TASK_LINES[lines.size() % TASK_LINES.length], lineLength), charset));
+            }
+        }
+        lines.add(line("", charset));
+        lines.add(line("BUILD SUCCESSFUL", charset));
+        lines.add(line("Total time: 12 minutes 3 seconds", charset));
+        return lines.toArray(new byte[0][]);
+    }
+
+    static byte[] concat(byte[][] lines) {
+        int size = 0;
+        for (byte[] line : lines) {
+            size += line.length;
+        }
+        byte[] log = new byte[size];
+        int pos = 0;
+        for (byte[] line : lines) {
+            System.arraycopy(line, 0, log, pos, line.length);
+            pos += line.length;
+        }
+        return log;
+    }
+
+    private static String pad(String line, int length) {
+        if (line.length() >= length) {
+            return line.substring(0, length);
+        }
+        StringBuilder b = new StringBuilder(length).append(line).append(' ');
+        while (b.length() < length) {
+            b.append((char) ('a' + b.length() % 26));
+        }
+        return b.toString();
+    }
+
+    private static byte[] line(String text, Charset charset) {
+        return (text + "\n").getBytes(charset);
+    }
+
+    private static byte[] note(int length) {
+        byte[] note = new byte[length];
+        for (int i = 0; i < length; i++) {
+            note[i] = (byte) ('A' + i % 26);
+        }
+        return note;
+    }
+}
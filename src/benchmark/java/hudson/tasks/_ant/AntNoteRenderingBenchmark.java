@@ -0,0 +1,70 @@
+package hudson.tasks._ant;
+
+import hudson.MarkupText;
+import hudson.console.ConsoleNote;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures rendering of {@link AntTargetNote} and {@link AntOutcomeNote}, as done for every annotated line
+ * whenever a console page is served.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AntNoteRenderingBenchmark {
+
+    @Param({"compile", "org.example.platform.persistence:integration-test"})
+    public String target;
+
+    private final AntTargetNote targetNote = new AntTargetNote();
+    /** As read from build logs written before notes knew where the name is. */
+    private final AntTargetNote legacyTargetNote = new AntTargetNote(false);
+    private final AntOutcomeNote successNote = new AntOutcomeNote(true);
+    private final AntOutcomeNote failureNote = new AntOutcomeNote(false);
+    /** As read from build logs written before notes knew the outcome. */
+    private final AntOutcomeNote legacyOutcomeNote = new AntOutcomeNote();
+
+    @Benchmark
+    public String targetNote() {
+        return render(targetNote, target + ":\n");
+    }
+
+    @Benchmark
+    public String legacyTargetNote() {
+        return render(legacyTargetNote, target + ":\n");
+    }
+
+    @Benchmark
+    public String outcomeSuccess() {
+        return render(successNote, "BUILD SUCCESSFUL\n");
+    }
+
+    @Benchmark
+    public String outcomeFailure() {
+        return render(failureNote, "BUILD FAILED\n");
+    }
+
+    @Benchmark
+    public String legacyOutcomeSuccess() {
+        return render(legacyOutcomeNote, "BUILD SUCCESSFUL\n");
+    }
+
+    @Benchmark
+    public String legacyOutcomeFailure() {
+        return render(legacyOutcomeNote, "BUILD FAILED\n");
+    }
+
+    private static String render(ConsoleNote<?> note, String line) {
+        MarkupText text = new MarkupText(line);
+        note.annotate(null, text, 0);
+        return text.toString(true);
+    }
+}
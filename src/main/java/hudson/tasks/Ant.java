@@ -24,31 +24,59 @@
 package hudson.tasks;
 
 import hudson.AbortException;
+import hudson.CloseProofOutputStream;
 import hudson.CopyOnWrite;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Functions;
 import hudson.Launcher;
+import hudson.Proc;
 import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.Computer;
 import hudson.model.EnvironmentSpecific;
 import jenkins.model.Jenkins;
 import jenkins.security.MasterToSlaveCallable;
 import hudson.model.Node;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.slaves.NodeSpecific;
 import hudson.tasks._ant.Messages;
+import hudson.tasks._ant.AntAsyncOutputStream;
+import hudson.tasks._ant.AntBuildAction;
+import hudson.tasks._ant.AntClassDataSharing;
 import hudson.tasks._ant.AntConsoleAnnotator;
+import hudson.tasks._ant.AntDaemonClient;
+import hudson.tasks._ant.AntEventListener;
+import hudson.tasks._ant.AntEvents;
+import hudson.tasks._ant.AntExecutableCache;
+import hudson.tasks._ant.AntFingerprint;
+import hudson.tasks._ant.AntHeap;
+import hudson.tasks._ant.AntHeapAction;
+import hudson.tasks._ant.AntParallelOutput;
+import hudson.tasks._ant.AntPhaseAction;
+import hudson.tasks._ant.AntProgressAction;
+import hudson.tasks._ant.AntInstallerCache;
+import hudson.tasks._ant.AntMetrics;
+import hudson.tasks._ant.AntOutputCache;
+import hudson.tasks._ant.AntOutputCacheAction;
+import hudson.tasks._ant.AntProvisioner;
+import hudson.tasks._ant.AntTargetIndex;
+import hudson.tasks._ant.AntTrendAction;
+import hudson.tasks._ant.AntUpToDateAction;
+import hudson.tasks._ant.Jars;
 import hudson.tools.ToolDescriptor;
 import hudson.tools.ToolInstallation;
 import hudson.tools.DownloadFromUrlInstaller;
 import hudson.tools.ToolInstaller;
 import hudson.tools.ToolProperty;
 import hudson.util.ArgumentListBuilder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import hudson.util.VariableResolver;
 import hudson.util.FormValidation;
 import hudson.util.XStream2;
@@ -56,19 +84,34 @@ import hudson.util.XStream2;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 import hudson.remoting.VirtualChannel;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Properties;
 import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Ant launcher.
@@ -102,6 +145,43 @@ public class Ant extends Builder {
      * Optional properties to be passed to Ant. Follows {@link Properties} syntax.
      */
     private final String properties;
+
+    /**
+     * Whether to inject {@link AntEventListener} to learn about targets from Ant itself rather than its output.
+     */
+    private boolean recordEvents;
+
+    /**
+     * Whether to run Ant in a warm {@link AntDaemonClient daemon} on the agent rather than in a new JVM.
+     */
+    private boolean daemon;
+
+    /**
+     * How many groups of targets, one per line of {@link #targets}, may run as separate Ant processes at once;
+     * 1 or less to run all targets in one process.
+     */
+    private int parallelism;
+
+    /**
+     * Patterns of the files this step reads, relative to the workspace, or null for no up-to-date check.
+     * See {@link AntFingerprint}.
+     */
+    private String inputs;
+
+    /**
+     * Patterns of the files this step produces, which have to be in the workspace for the step to be skipped; or null.
+     */
+    private String outputs;
+
+    /**
+     * Whether the {@link #outputs} are kept in the {@link AntOutputCache} and restored from it instead of running Ant.
+     */
+    private boolean cache;
+
+    /**
+     * Whether {@link AntHeap} picks the heap size from the peak heap of earlier builds.
+     */
+    private boolean adaptiveHeap;
     
     @DataBoundConstructor
     public Ant(String targets,String antName, String antOpts, String buildFile, String properties) {
@@ -129,11 +209,7 @@ public class Ant extends Builder {
      * or null to invoke the default one.
      */
     public AntInstallation getAnt() {
-        for( AntInstallation i : getDescriptor().getInstallations() ) {
-            if(antName!=null && antName.equals(i.getName()))
-                return i;
-        }
-        return null;
+        return antName!=null ? getDescriptor().getInstallation(antName) : null;
     }
 
     /**
@@ -143,8 +219,72 @@ public class Ant extends Builder {
         return antOpts;
     }
 
+    public boolean isRecordEvents() {
+        return recordEvents;
+    }
+
+    @DataBoundSetter
+    public void setRecordEvents(boolean recordEvents) {
+        this.recordEvents = recordEvents;
+    }
+
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    @DataBoundSetter
+    public void setDaemon(boolean daemon) {
+        this.daemon = daemon;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public String getInputs() {
+        return inputs;
+    }
+
+    @DataBoundSetter
+    public void setInputs(String inputs) {
+        this.inputs = Util.fixEmptyAndTrim(inputs);
+    }
+
+    public String getOutputs() {
+        return outputs;
+    }
+
+    @DataBoundSetter
+    public void setOutputs(String outputs) {
+        this.outputs = Util.fixEmptyAndTrim(outputs);
+    }
+
+    public boolean isCache() {
+        return cache;
+    }
+
+    @DataBoundSetter
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    public boolean isAdaptiveHeap() {
+        return adaptiveHeap;
+    }
+
+    @DataBoundSetter
+    public void setAdaptiveHeap(boolean adaptiveHeap) {
+        this.adaptiveHeap = adaptiveHeap;
+    }
+
     @Override
     public boolean perform(AbstractBuild<?,?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+        AntPhaseAction.Tracer phases = AntPhaseAction.trace(build, StringUtils.defaultIfBlank(targets, Messages.Ant_DisplayName()), listener);
         ArgumentListBuilder args = new ArgumentListBuilder();
 
         EnvVars env = build.getEnvironment(listener);
@@ -158,52 +298,129 @@ public class Ant extends Builder {
                 env.override(e.getKey(), e.getValue());
             }
         }
+        phases.end("environment");
+
+        VariableResolver<String> vr = new VariableResolver.ByMap<String>(env);
+        String buildFile = env.expand(this.buildFile);
+        String targets = env.expand(this.targets);
+        List<String> groups = parallelism > 1 ? targetGroups(targets) : Collections.emptyList();
+        boolean parallel = groups.size() > 1;
+
+        FilePath buildFilePath = buildFilePath(build.getModuleRoot(), buildFile, targets);
+        // because of the poor choice of getModuleRoot() with CVS/Subversion, people often get confused
+        // with where the build file path is relative to. Now it's too late to change this behavior
+        // due to compatibility issue, but at least we can make this less painful by looking for errors
+        // and diagnosing it nicely. See HUDSON-1782
+        FilePath workspaceFilePath = build.getWorkspace();
+        FilePath buildFilePath2 = workspaceFilePath != null ? buildFilePath(workspaceFilePath, buildFile, targets) : null;
 
         AntInstallation ai = getAnt();
-        if(ai==null) {
-            args.add(launcher.isUnix() ? "ant" : "ant.bat");
-        } else {
-            Node node = Computer.currentComputer().getNode();
+        Node node = Computer.currentComputer().getNode();
+        String home = null;
+        String exe = null;
+        if (ai != null) {
             if (node == null) {
                 throw new AbortException(Messages.Ant_NodeOffline());
             }
+            long start = System.nanoTime();
+            AntProvisioner.get().await(node, ai, listener);
+            phases.end("provisioning");
             ai = ai.forNode(node, listener);
             ai = ai.forEnvironment(env);
-            String exe = ai.getExecutable(launcher);
+            home = ai.getHome();
+            AntMetrics.time("ant_tool_resolution_seconds", start, "step", "ant");
+        }
+        phases.end("installation");
+
+        VirtualChannel channel = launcher.getChannel();
+        if (channel == null) {
+            throw new IOException("offline?");
+        }
+        if (home != null) {
+            exe = AntExecutableCache.get().getIfPresent(channel, home);
+        }
+        // one round trip for everything that has to be checked on the node
+        long preFlightStart = System.nanoTime();
+        PreFlight.Result preFlight = channel.call(new PreFlight(exe == null ? home : null,
+                buildFilePath.getRemote(), buildFilePath2 != null ? buildFilePath2.getRemote() : null)
+                .withJava(env.get("JAVA_HOME"), env.get("PATH")));
+        AntMetrics.time("ant_preflight_seconds", preFlightStart);
+        if (home != null && exe == null) {
+            exe = preFlight.executable;
+            AntExecutableCache.get().put(channel, home, exe);
+        }
+        // the build file checks and the executable lookup are done in a single call
+        phases.end("pre-flight");
+
+        if(ai==null) {
+            args.add(launcher.isUnix() ? "ant" : "ant.bat");
+        } else {
             if (exe==null) {
                 throw new AbortException(Messages.Ant_ExecutableNotFound(ai.getName()));
             }
             args.add(exe);
         }
 
-        VariableResolver<String> vr = new VariableResolver.ByMap<String>(env);
-        String buildFile = env.expand(this.buildFile);
-        String targets = env.expand(this.targets);
-        
-        FilePath buildFilePath = buildFilePath(build.getModuleRoot(), buildFile, targets);
+        if (preFlight.buildFile == 1) {
+            // This must be what the user meant. Let it continue.
+            buildFilePath = buildFilePath2;
+        } else if (preFlight.buildFile < 0) {
+            if (workspaceFilePath == null) {
+                throw new AbortException("Workspace is not available. Agent may be disconnected.");
+            }
+            // neither file exists. So this now really does look like an error.
+            throw new AbortException("Unable to find build script at "+ buildFilePath);
+        }
 
-        if(!buildFilePath.exists()) {
-            // because of the poor choice of getModuleRoot() with CVS/Subversion, people often get confused
-            // with where the build file path is relative to. Now it's too late to change this behavior
-            // due to compatibility issue, but at least we can make this less painful by looking for errors
-            // and diagnosing it nicely. See HUDSON-1782
-
-            // first check if this appears to be a valid relative path from workspace root
-            FilePath workspaceFilePath = build.getWorkspace();
-            if (workspaceFilePath != null) {
-                FilePath buildFilePath2 = buildFilePath(workspaceFilePath, buildFile, targets);
-                if(buildFilePath2.exists()) {
-                    // This must be what the user meant. Let it continue.
-                    buildFilePath = buildFilePath2;
-                } else {
-                    // neither file exists. So this now really does look like an error.
-                    throw new AbortException("Unable to find build script at "+ buildFilePath);
+        String fingerprint = null;
+        String cacheKey = null;
+        String expandedOutputs = Util.fixEmptyAndTrim(env.expand(outputs));
+        if (inputs != null && workspaceFilePath != null) {
+            fingerprint = AntFingerprint.compute(workspaceFilePath, env.expand(inputs), buildFilePath, invocation(build, env, vr, ai, targets),
+                    home, env.get("JAVA_HOME"));
+            listener.getLogger().println(Messages.Ant_Fingerprint(fingerprint));
+            Run<?,?> upToDateWith = upToDateWith(build, fingerprint, workspaceFilePath, expandedOutputs, listener);
+            phases.end("up-to-date check");
+            if (upToDateWith != null) {
+                AntUpToDateAction.of(build).add(new AntUpToDateAction.Step(targets, fingerprint, upToDateWith.getNumber()));
+                countResult(ai, "up_to_date");
+                return true;
+            }
+            if (cache && expandedOutputs != null && node != null) {
+                cacheKey = AntOutputCache.key(fingerprint, expandedOutputs);
+                boolean restored = restoreOutputs(build, node, workspaceFilePath, cacheKey, listener);
+                phases.end("output cache");
+                if (restored) {
+                    // as good as having run Ant, for the up-to-date check of the next build
+                    AntUpToDateAction.of(build).add(new AntUpToDateAction.Step(targets, fingerprint, null));
+                    countResult(ai, "restored");
+                    return true;
                 }
+            }
+        }
+
+        // the listeners injected into Ant are compiled for the Java of Jenkins
+        boolean events = recordEvents && workspaceFilePath != null;
+        if (events && !Jars.canLoad(preFlight.javaVersion)) {
+            listener.getLogger().println(Messages.Ant_EventsUnsupported(Jars.getRequiredJava(), javaName(preFlight.javaVersion)));
+            events = false;
+        }
+        FilePath eventFile = null;
+        // with groups, each process gets its own event file
+        if (events && !parallel) {
+            eventFile = AntEvents.inject(workspaceFilePath, args, env);
+        }
+        FilePath heapFile = null;
+        if (adaptiveHeap && workspaceFilePath != null && !parallel) {
+            if (Jars.canLoad(preFlight.javaVersion)) {
+                heapFile = AntHeap.inject(workspaceFilePath, args, env);
             } else {
-                throw new AbortException("Workspace is not available. Agent may be disconnected.");
+                listener.getLogger().println(Messages.Ant_HeapUnsupported(Jars.getRequiredJava(), javaName(preFlight.javaVersion)));
             }
         }
 
+        // what comes after the executable is what a daemon needs
+        int antArgsStart = args.toList().size();
         if(buildFile!=null) {
             args.add("-file", buildFilePath.getName());
         }
@@ -214,28 +431,134 @@ public class Ant extends Builder {
 
         args.addKeyValuePairsFromPropertyString("-D",properties,vr,sensitiveVars);
 
-        args.addTokenized(targets.replaceAll("[\t\r\n]+"," "));
+        if (!parallel) {
+            args.addTokenized(targets.replaceAll("[\t\r\n]+"," "));
+        }
 
         if(ai!=null)
             ai.buildEnvVars(env);
         if(antOpts!=null)
             env.put("ANT_OPTS",env.expand(antOpts));
+        if (adaptiveHeap) {
+            String userOpts = Util.fixNull(env.get("ANT_OPTS"));
+            AntHeap.Sizing sizing = AntHeap.size(AntHeapAction.history(build, targets), preFlight.availableMemory, userOpts);
+            listener.getLogger().println(sizing.getDescription());
+            if (!sizing.getOptions().isEmpty()) {
+                // in front, so that options of the user win anyway
+                env.put("ANT_OPTS", (String.join(" ", sizing.getOptions()) + " " + userOpts).trim());
+            }
+        }
+        AntClassDataSharing.Plan cds = null;
+        FilePath startupFile = null;
+        // a daemon would keep the archive from being dumped, and groups would all dump it at once
+        if (ai != null && node != null && !daemon && !parallel && ai.getProperties().get(AntClassDataSharing.class) != null) {
+            cds = classDataSharing(node, home, env, listener);
+            // the archive works from Java 13, but the startup listener needs the Java of Jenkins
+            if (cds != null && workspaceFilePath != null) {
+                if (Jars.canLoad(cds.getJavaVersion())) {
+                    startupFile = AntClassDataSharing.inject(workspaceFilePath, args, env);
+                } else {
+                    listener.getLogger().println(Messages.Ant_StartupUnsupported(Jars.getRequiredJava(), javaName(cds.getJavaVersion())));
+                }
+            }
+        }
+
+        List<String> daemonArgs = null;
+        boolean useDaemon = daemon && launcher.isUnix() && eventFile == null && heapFile == null && node != null && !parallel;
+        if (useDaemon && !Jars.canLoad(preFlight.javaVersion)) {
+            listener.getLogger().println(Messages.Ant_DaemonUnsupported(Jars.getRequiredJava(), javaName(preFlight.javaVersion)));
+            useDaemon = false;
+        }
+        if (useDaemon) {
+            List<String> all = args.toList();
+            daemonArgs = all.subList(antArgsStart + (buildFile != null ? 2 : 0), all.size());
+        }
 
-        if(!launcher.isUnix()) {
+        if(!launcher.isUnix() && !parallel) {
             args = toWindowsCommand(args.toWindowsCommand());
         }
 
+        AntBuildAction antAction = build.getAction(AntBuildAction.class);
+        if (antAction==null) {
+            antAction = new AntBuildAction();
+            build.addAction(antAction);
+        }
+        // with the event listener, targets come from Ant itself rather than from its output
+        AntBuildAction.Recorder recorder = eventFile==null ? antAction.record() : null;
+
+        phases.end("arguments");
         long startTime = System.currentTimeMillis();
         try {
-            AntConsoleAnnotator aca = new AntConsoleAnnotator(listener.getLogger(),build.getCharset());
+            // the build log stays open; closing this only waits for the output to be written
+            AntAsyncOutputStream async = AntAsyncOutputStream.ENABLED
+                    ? new AntAsyncOutputStream(new CloseProofOutputStream(listener.getLogger()), build.getFullDisplayName()) : null;
             int r;
             try {
-                r = launcher.launch().cmds(args).envs(env).stdout(aca).pwd(buildFilePath.getParent()).join();
+                OutputStream log = async!=null ? async : listener.getLogger();
+                AntTargetIndex.Writer index = AntTargetIndex.open(build, log);
+                if (parallel) {
+                    try {
+                        r = runGroups(build, launcher, listener, log, args, groups, env, buildFilePath.getParent(), workspaceFilePath, events, antAction, index);
+                    } finally {
+                        try {
+                            if (async!=null)
+                                async.close();
+                        } finally {
+                            if (index!=null)
+                                index.close();
+                        }
+                    }
+                } else {
+                    AntConsoleAnnotator aca = new AntConsoleAnnotator(log,build.getCharset(),AntConsoleAnnotator.Listener.all(recorder, index, AntProgressAction.of(build)));
+                    AntBuildAction.EventRecorder eventRecorder = eventFile!=null ? antAction.recordEvents() : null;
+                    AntEvents.Tail eventTail = eventRecorder!=null ? new AntEvents.Tail(eventFile, eventRecorder).start() : null;
+                    try {
+                        Integer daemonResult = daemonArgs != null ? AntDaemonClient.run(node, launcher, args.toList().get(0),
+                                buildFilePath.getRemote(), daemonArgs, env, aca, listener) : null;
+                        if (daemonResult != null) {
+                            r = daemonResult;
+                        } else {
+                            r = launchAndJoin(launcher.launch().cmds(args).envs(env).stdout(aca).pwd(buildFilePath.getParent()));
+                        }
+                    } finally {
+                        try {
+                            aca.forceEol();
+                        } finally {
+                            // the writer thread of the stream has to stop whatever happened to the log
+                            try {
+                                if (async!=null)
+                                    async.close();
+                            } finally {
+                                if (recorder!=null)
+                                    recorder.finish();
+                                if (eventTail!=null)
+                                    finishEvents(eventTail, eventRecorder, listener);
+                                if (index!=null)
+                                    index.close();
+                            }
+                        }
+                    }
+                    if (heapFile!=null)
+                        readPeakHeap(heapFile, build, targets, listener);
+                    if (cds!=null)
+                        finishClassDataSharing(node, cds, startupFile, listener);
+                }
             } finally {
-                aca.forceEol();
+                // a no-op unless something above failed before the stream was closed in order with the rest
+                if (async!=null)
+                    async.close();
+            }
+            phases.end("ant");
+            if (r==0 && fingerprint!=null)
+                AntUpToDateAction.of(build).add(new AntUpToDateAction.Step(targets, fingerprint, null));
+            if (r==0 && cacheKey!=null) {
+                storeOutputs(build, node, workspaceFilePath, cacheKey, expandedOutputs, listener);
+                phases.end("output cache");
             }
+            countResult(ai, r==0 ? "success" : "failure");
             return r==0;
         } catch (IOException e) {
+            countResult(ai, "failure");
             Util.displayIOException(e,listener);
 
             String errorMessage = Messages.Ant_ExecFailed();
@@ -251,6 +574,266 @@ public class Ant extends Builder {
         }
     }
 
+    /**
+     * Describes everything besides the files that decides what this step does, for {@link AntFingerprint}.
+     * Only what is the same on all nodes goes in, so that the step can be up to date with a build on another node.
+     */
+    private String invocation(AbstractBuild<?,?> build, EnvVars env, VariableResolver<String> vr, AntInstallation ai, String targets) {
+        return String.join("\n",
+                "ant=" + (ai != null ? ai.getName() : ""),
+                "targets=" + targets,
+                "properties=" + Util.fixNull(Util.replaceMacro(properties, vr)),
+                "variables=" + new TreeMap<>(build.getBuildVariables()),
+                "ANT_OPTS=" + Util.fixNull(antOpts != null ? env.expand(antOpts) : env.get("ANT_OPTS")));
+    }
+
+    /**
+     * Finds the build that this step would repeat, telling why the step has to run if there is none.
+     */
+    private Run<?,?> upToDateWith(AbstractBuild<?,?> build, String fingerprint, FilePath workspace, String outputs, TaskListener listener) throws IOException, InterruptedException {
+        Run<?,?> previous = AntUpToDateAction.findUpToDate(build, fingerprint);
+        if (previous == null) {
+            listener.getLogger().println(Messages.Ant_InputsChanged());
+            return null;
+        }
+        List<String> missing = AntFingerprint.missing(workspace, outputs);
+        if (!missing.isEmpty()) {
+            listener.getLogger().println(Messages.Ant_OutputsMissing(previous.getFullDisplayName(), String.join(", ", missing)));
+            return null;
+        }
+        listener.getLogger().println(Messages.Ant_UpToDate(previous.getFullDisplayName()));
+        return previous;
+    }
+
+    /**
+     * Restores the outputs from the {@link AntOutputCache}, treating a broken entry as a miss.
+     *
+     * @return whether they were restored
+     */
+    private static boolean restoreOutputs(AbstractBuild<?,?> build, Node node, FilePath workspace, String key, TaskListener listener) throws InterruptedException {
+        try {
+            long size = AntOutputCache.restore(node, workspace, key);
+            if (size >= 0) {
+                AntOutputCacheAction.of(build).hit(size);
+                listener.getLogger().println(Messages.Ant_CacheRestored(Functions.humanReadableByteSize(size)));
+                return true;
+            }
+            listener.getLogger().println(Messages.Ant_CacheMiss());
+        } catch (IOException x) {
+            Functions.printStackTrace(x, listener.error(Messages.Ant_CacheRestoreFailed()));
+        }
+        AntOutputCacheAction.of(build).miss();
+        return false;
+    }
+
+    /**
+     * Adds the outputs to the {@link AntOutputCache}; a failure to do so does not fail the build.
+     */
+    private static void storeOutputs(AbstractBuild<?,?> build, Node node, FilePath workspace, String key, String outputs, TaskListener listener) throws InterruptedException {
+        try {
+            long size = AntOutputCache.store(node, workspace, key, outputs);
+            if (size >= 0) {
+                AntOutputCacheAction.of(build).stored(size);
+                listener.getLogger().println(Messages.Ant_CacheStored(Functions.humanReadableByteSize(size)));
+            }
+        } catch (IOException x) {
+            Functions.printStackTrace(x, listener.error(Messages.Ant_CacheStoreFailed()));
+        }
+    }
+
+    /**
+     * Splits the targets into groups that may run at the same time, one for each line that is not blank.
+     */
+    static List<String> targetGroups(String targets) {
+        List<String> groups = new ArrayList<>();
+        for (String line : targets.split("[\r\n]+")) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                groups.add(line);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Runs each group of targets in an Ant process of its own, at most {@link #parallelism} at a time,
+     * with the output of each labelled with its targets and interleaved a line at a time.
+     * Once a group has failed, the groups still waiting are not started.
+     *
+     * @param log where the output goes
+     * @param args the command line up to the targets
+     * @return 0 if all groups succeeded
+     */
+    private int runGroups(AbstractBuild<?,?> build, Launcher launcher, BuildListener listener, OutputStream log, ArgumentListBuilder args,
+                          List<String> groups, EnvVars env, FilePath pwd, FilePath workspaceFilePath, boolean events,
+                          AntBuildAction antAction, AntTargetIndex.Writer index) throws IOException, InterruptedException {
+        AntParallelOutput output = new AntParallelOutput(log, index);
+        Charset charset = build.getCharset();
+        AtomicBoolean failed = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, groups.size()),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Ant target groups of " + build));
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (String group : groups) {
+                results.add(executor.submit(() -> {
+                    if (failed.get()) {
+                        output.println(group, Messages.Ant_GroupSkipped(), charset);
+                        return -1;
+                    }
+                    int r = runGroup(launcher, listener, args, group, env, pwd, workspaceFilePath, events, antAction, output, charset);
+                    output.println(group, Messages.Ant_GroupFinished(r), charset);
+                    if (r != 0) {
+                        failed.set(true);
+                    }
+                    return r;
+                }));
+            }
+            int r = 0;
+            for (Future<Integer> result : results) {
+                try {
+                    if (result.get() != 0) {
+                        r = 1;
+                    }
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    }
+                    throw new IOException(cause);
+                }
+            }
+            return r;
+        } finally {
+            // on abort, interrupting the joins kills the processes
+            executor.shutdownNow();
+            // which have to be gone before the caller closes the output and the index
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    listener.getLogger().println(Messages.Ant_GroupsStillRunning());
+                }
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int runGroup(Launcher launcher, BuildListener listener, ArgumentListBuilder args, String group, EnvVars env,
+                         FilePath pwd, FilePath workspaceFilePath, boolean events, AntBuildAction antAction,
+                         AntParallelOutput output, Charset charset) throws IOException, InterruptedException {
+        ArgumentListBuilder groupArgs = args.clone();
+        EnvVars groupEnv = new EnvVars(env);
+        FilePath eventFile = events ? AntEvents.inject(workspaceFilePath, groupArgs, groupEnv) : null;
+        groupArgs.addTokenized(group);
+        if (!launcher.isUnix()) {
+            groupArgs = toWindowsCommand(groupArgs.toWindowsCommand());
+        }
+        AntBuildAction.Recorder recorder = eventFile==null ? antAction.record() : null;
+        AntBuildAction.EventRecorder eventRecorder = eventFile!=null ? antAction.recordEvents() : null;
+        AntConsoleAnnotator aca = output.lane(group, charset, recorder);
+        AntEvents.Tail eventTail = eventRecorder!=null ? new AntEvents.Tail(eventFile, eventRecorder).start() : null;
+        int r;
+        try {
+            r = launchAndJoin(launcher.launch().cmds(groupArgs).envs(groupEnv).stdout(aca).pwd(pwd));
+        } finally {
+            aca.close();
+            if (recorder!=null)
+                recorder.finish();
+            if (eventTail!=null)
+                finishEvents(eventTail, eventRecorder, listener);
+        }
+        return r;
+    }
+
+    /**
+     * Same as {@link Launcher.ProcStarter#join}, timing the launch and the wait for {@link AntMetrics}.
+     */
+    private static int launchAndJoin(Launcher.ProcStarter starter) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Proc proc = starter.start();
+        AntMetrics.time("ant_launch_seconds", start);
+        long launched = System.nanoTime();
+        try {
+            return proc.join();
+        } finally {
+            AntMetrics.time("ant_join_seconds", launched);
+        }
+    }
+
+    /**
+     * Adds the options for the archive of {@link AntClassDataSharing} to {@code ANT_OPTS}, unless they already deal with it.
+     *
+     * @return how Ant uses the archive, or null if it does not
+     */
+    private static AntClassDataSharing.Plan classDataSharing(Node node, String home, EnvVars env, TaskListener listener) throws IOException, InterruptedException {
+        String opts = Util.fixNull(env.get("ANT_OPTS"));
+        if (AntClassDataSharing.isConfigured(opts)) {
+            return null;
+        }
+        String javaHome = env.get("JAVA_HOME");
+        if (javaHome == null) {
+            listener.getLogger().println(Messages.AntClassDataSharing_NoJavaHome());
+            return null;
+        }
+        AntClassDataSharing.Plan plan = AntClassDataSharing.prepare(node, home, javaHome);
+        if (plan == null) {
+            return null;
+        }
+        if (plan.getOptions().isEmpty()) {
+            listener.getLogger().println(Messages.AntClassDataSharing_Unsupported(plan.getJavaVersion()));
+            return null;
+        }
+        env.put("ANT_OPTS", (String.join(" ", plan.getOptions()) + " " + opts).trim());
+        return plan;
+    }
+
+    /**
+     * Keeps the archive of {@link AntClassDataSharing} if the run dumped it; a failure to do so does not fail the build.
+     */
+    private static void finishClassDataSharing(Node node, AntClassDataSharing.Plan plan, FilePath startupFile, TaskListener listener) throws InterruptedException {
+        try {
+            listener.getLogger().println(AntClassDataSharing.finish(node, plan, startupFile));
+        } catch (IOException x) {
+            Functions.printStackTrace(x, listener.error(Messages.AntClassDataSharing_FinishFailed()));
+        }
+    }
+
+    private static void readPeakHeap(FilePath heapFile, AbstractBuild<?,?> build, String targets, TaskListener listener) throws IOException, InterruptedException {
+        long peak = AntHeap.read(heapFile);
+        if (peak >= 0) {
+            AntHeapAction.of(build).add(new AntHeapAction.Sample(targets, peak));
+            listener.getLogger().println(Messages.AntHeap_Peak(Functions.humanReadableByteSize(peak)));
+        }
+    }
+
+    /**
+     * Names the version of Java found by {@link PreFlight} in messages.
+     */
+    private static String javaName(String javaVersion) {
+        return javaVersion.isEmpty() ? Messages.Ant_UnknownJava() : Messages.Ant_Java(javaVersion);
+    }
+
+    private static void countResult(AntInstallation ai, String result) {
+        AntMetrics.count("ant_builds_total", 1, "installation", ai != null ? ai.getName() : "", "result", result);
+    }
+
+    /**
+     * Handles the events that Ant wrote since the last poll, deletes the event file, and ends the targets still running.
+     */
+    private static void finishEvents(AntEvents.Tail eventTail, AntBuildAction.EventRecorder recorder, TaskListener listener) {
+        try {
+            eventTail.stop();
+        } catch (IOException e) {
+            Functions.printStackTrace(e, listener.error("Failed to read Ant events from " + eventTail.getFile()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            recorder.finish();
+        }
+    }
+
     /**
      * Backward compatibility by checking the number of parameters
      *
@@ -289,6 +872,68 @@ public class Ant extends Builder {
         return args;
     }
 
+    /**
+     * Checks on the node, in one call, what {@link #perform} needs to know before launching Ant:
+     * where the executable of the installation is, which of the candidate build files exists,
+     * and which version of Java Ant is going to run on.
+     */
+    static final class PreFlight extends MasterToSlaveCallable<PreFlight.Result, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        /** Home of the installation, or null if the executable is not needed. */
+        private final String rawHome;
+        private final String[] buildFiles;
+        private String javaHome;
+        private String path;
+
+        PreFlight(String rawHome, String... buildFiles) {
+            this.rawHome = rawHome;
+            this.buildFiles = buildFiles;
+        }
+
+        /**
+         * Also finds out the version of Java from the {@code JAVA_HOME} and {@code PATH} Ant will be launched with.
+         */
+        PreFlight withJava(String javaHome, String path) {
+            this.javaHome = javaHome;
+            this.path = path;
+            return this;
+        }
+
+        @Override
+        public Result call() throws IOException {
+            Result r = new Result();
+            if (rawHome != null) {
+                r.executable = AntInstallation.findExecutable(rawHome);
+            }
+            for (int i = 0; i < buildFiles.length; i++) {
+                if (buildFiles[i] != null && new File(buildFiles[i]).exists()) {
+                    r.buildFile = i;
+                    break;
+                }
+            }
+            if (javaHome != null || path != null) {
+                r.javaVersion = Jars.javaVersion(javaHome, path);
+            }
+            // for AntHeap; cheap enough to always ask
+            r.availableMemory = AntHeap.availableMemory();
+            return r;
+        }
+
+        static final class Result implements Serializable {
+            private static final long serialVersionUID = 1L;
+
+            /** Path of the executable, or null if it was not found or not asked for. */
+            String executable;
+            /** Index of the first build file that exists, or -1. */
+            int buildFile = -1;
+            /** Version of Java that Ant runs on, or empty if unknown or not asked for. */
+            String javaVersion = "";
+            /** Available physical memory of the node in bytes, or -1 if unknown. */
+            long availableMemory = -1;
+        }
+    }
+
     private static FilePath buildFilePath(FilePath base, String buildFile, String targets) {
         if(buildFile!=null)     return base.child(buildFile);
         // some users specify the -f option in the targets field, so take that into account as well.
@@ -302,6 +947,11 @@ public class Ant extends Builder {
         return base.child("build.xml");
     }
 
+    @Override
+    public Collection<? extends Action> getProjectActions(AbstractProject<?,?> project) {
+        return Collections.singleton(new AntTrendAction(project));
+    }
+
     @Override
     public DescriptorImpl getDescriptor() {
         return (DescriptorImpl)super.getDescriptor();
@@ -312,6 +962,11 @@ public class Ant extends Builder {
         @CopyOnWrite
         private volatile AntInstallation[] installations = new AntInstallation[0];
 
+        /**
+         * {@link #installations} by name, rebuilt whenever the array is replaced, including by {@link #load}.
+         */
+        private transient volatile Index index;
+
         public DescriptorImpl() {
             load();
         }
@@ -339,9 +994,42 @@ public class Ant extends Builder {
             return Arrays.copyOf(installations, installations.length);
         }
 
+        /**
+         * Gets the installation of the given name, without copying the installations like {@link #getInstallations} does.
+         *
+         * @return the first installation of that name, or null
+         * @since TODO
+         */
+        public AntInstallation getInstallation(String name) {
+            AntInstallation[] installations = this.installations;
+            Index index = this.index;
+            if (index==null || index.installations!=installations) {
+                index = new Index(installations);
+                this.index = index;
+            }
+            return index.byName.get(name);
+        }
+
         public void setInstallations(AntInstallation... antInstallations) {
+            this.index = new Index(antInstallations);
             this.installations = antInstallations;
             save();
+            AntExecutableCache.get().invalidateAll();
+            AntProvisioner.get().provisionAll();
+        }
+
+        private static final class Index {
+            final AntInstallation[] installations;
+            final Map<String, AntInstallation> byName;
+
+            Index(AntInstallation[] installations) {
+                this.installations = installations;
+                Map<String, AntInstallation> byName = new HashMap<>();
+                for (AntInstallation i : installations) {
+                    byName.putIfAbsent(i.getName(), i);
+                }
+                this.byName = Collections.unmodifiableMap(byName);
+            }
         }
     }
 
@@ -397,13 +1085,14 @@ public class Ant extends Builder {
 
         /**
          * Gets the executable path of this Ant on the given target system.
+         * Executables that were found are remembered for a while by {@link AntExecutableCache}.
          */
         public String getExecutable(Launcher launcher) throws IOException, InterruptedException {
             VirtualChannel channel = launcher.getChannel();
             if (channel == null) {
                 throw new IOException("offline?");
             }
-            return channel.call(new GetExecutable(getHome()));
+            return AntExecutableCache.get().resolve(channel, getHome(), new GetExecutable(getHome()));
         }
         private static class GetExecutable extends MasterToSlaveCallable<String, IOException> {
             private static final long serialVersionUID = 906341330603832653L;
@@ -412,16 +1101,23 @@ public class Ant extends Builder {
                 this.rawHome = rawHome;
             }
             @Override public String call() throws IOException {
-                String execName = Functions.isWindows() ? "ant.bat" : "ant";
-                String home = Util.replaceMacro(rawHome, EnvVars.masterEnvVars);
-                File exe = new File(home, "bin/" + execName);
-                if (exe.exists()) {
-                    return exe.getPath();
-                }
-                return null;
+                return findExecutable(rawHome);
             }
         }
 
+        /**
+         * Looks for the executable on the node this is running on.
+         */
+        static String findExecutable(String rawHome) {
+            String execName = Functions.isWindows() ? "ant.bat" : "ant";
+            String home = Util.replaceMacro(rawHome, EnvVars.masterEnvVars);
+            File exe = new File(home, "bin/" + execName);
+            if (exe.exists()) {
+                return exe.getPath();
+            }
+            return null;
+        }
+
         /**
          * Returns true if the executable exists.
          */
@@ -506,6 +1202,73 @@ public class Ant extends Builder {
             super(id);
         }
 
+        @Override
+        public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws IOException, InterruptedException {
+            try {
+                if (AntInstallerCache.ENABLED) {
+                    FilePath home = installFromCache(tool, node, log);
+                    if (home != null) {
+                        return home;
+                    }
+                }
+                return super.performInstallation(tool, node, log);
+            } finally {
+                VirtualChannel channel = node.getChannel();
+                if (channel != null) {
+                    AntExecutableCache.get().invalidate(channel);
+                }
+            }
+        }
+
+        /**
+         * Installs from the archive in {@link AntInstallerCache}, streamed from the controller.
+         *
+         * @return the installation, or null to let the agent download the archive itself
+         */
+        private FilePath installFromCache(ToolInstallation tool, Node node, TaskListener log) throws IOException, InterruptedException {
+            Installable inst = getInstallable();
+            if (inst == null) {
+                return null;
+            }
+            if (inst instanceof NodeSpecific) {
+                inst = (Installable) ((NodeSpecific<?>) inst).forNode(node, log);
+            }
+            FilePath expected = preferredLocation(tool, node);
+            if (isUpToDate(expected, inst)) {
+                return expected;
+            }
+            InputStream archive;
+            try {
+                archive = AntInstallerCache.get().open(new URL(inst.url), log);
+            } catch (IOException e) {
+                Functions.printStackTrace(e, log.error("Failed to download " + inst.url + " to the controller, downloading it from the agent"));
+                return null;
+            }
+            log.getLogger().println("Unpacking " + inst.url + " to " + expected + " on " + node.getDisplayName());
+            try (InputStream in = archive) {
+                expected.deleteRecursive();
+                expected.mkdirs();
+                if (inst.url.endsWith(".zip")) {
+                    expected.unzipFrom(in);
+                } else {
+                    expected.untarFrom(in, FilePath.TarCompression.GZIP);
+                }
+            }
+            FilePath base = findPullUpDirectory(expected);
+            if (base != null && base != expected) {
+                base.moveAllChildrenTo(expected);
+            }
+            // leave a record for the next up-to-date check
+            expected.child(".installedFrom").write(inst.url, "UTF-8");
+            FilePath bin = expected.child("bin");
+            if (bin.isDirectory()) {
+                for (FilePath f : bin.list()) {
+                    f.chmod(0755);
+                }
+            }
+            return expected;
+        }
+
         @Extension @Symbol("antFromApache")
         public static final class DescriptorImpl extends DownloadFromUrlInstaller.DescriptorImpl<AntInstaller> {
             public String getDisplayName() {
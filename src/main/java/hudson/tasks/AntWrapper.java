@@ -40,6 +40,9 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.slaves.NodeSpecific;
 import hudson.tasks._ant.AntConsoleAnnotator;
+import hudson.tasks._ant.AntMetrics;
+import hudson.tasks._ant.AntPhaseAction;
+import hudson.tasks._ant.AntProvisioner;
 import hudson.tools.ToolInstallation;
 import java.io.IOException;
 import java.util.Map;
@@ -78,23 +81,37 @@ public class AntWrapper extends SimpleBuildWrapper {
 
     @Override
     public void setUp(Context context, Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars initialEnvironment) throws IOException, InterruptedException {
+        AntPhaseAction.Tracer phases = AntPhaseAction.trace(build, getDescriptor().getDisplayName(), listener);
         if (installation != null) {
-            toolEnv(context, installation, Jenkins.get().getDescriptorByType(Ant.DescriptorImpl.class).getInstallations(), workspace, listener, initialEnvironment);
+            long start = System.nanoTime();
+            Ant.AntInstallation inst = Jenkins.get().getDescriptorByType(Ant.DescriptorImpl.class).getInstallation(installation);
+            Computer computer = workspace.toComputer();
+            Node node = computer != null ? computer.getNode() : null;
+            if (inst != null && node != null) {
+                AntProvisioner.get().await(node, inst, listener);
+            }
+            phases.end("provisioning");
+            toolEnv(context, installation, inst, workspace, listener, initialEnvironment);
+            phases.end("installation");
+            AntMetrics.time("ant_tool_resolution_seconds", start, "step", "withAnt");
         }
         if (jdk != null) {
-            toolEnv(context, jdk, Jenkins.get().getDescriptorByType(JDK.DescriptorImpl.class).getInstallations(), workspace, listener, initialEnvironment);
+            toolEnv(context, jdk, find(jdk, Jenkins.get().getDescriptorByType(JDK.DescriptorImpl.class).getInstallations()), workspace, listener, initialEnvironment);
+            phases.end("jdk");
         }
     }
 
-    // TODO this is pretty generic and could perhaps be added to SimpleBuildWrapper?
-    private static void toolEnv(Context context, @NonNull String tool, ToolInstallation[] tools, FilePath workspace, TaskListener listener, EnvVars initialEnvironment) throws IOException, InterruptedException {
-        ToolInstallation inst = null;
-        for (ToolInstallation _inst : tools) {
-            if (_inst.getName().equals(tool)) {
-                inst = _inst;
-                break;
+    private static ToolInstallation find(@NonNull String tool, ToolInstallation[] tools) {
+        for (ToolInstallation inst : tools) {
+            if (inst.getName().equals(tool)) {
+                return inst;
             }
         }
+        return null;
+    }
+
+    // TODO this is pretty generic and could perhaps be added to SimpleBuildWrapper?
+    private static void toolEnv(Context context, @NonNull String tool, ToolInstallation inst, FilePath workspace, TaskListener listener, EnvVars initialEnvironment) throws IOException, InterruptedException {
         if (inst == null) {
             throw new AbortException("no such tool ‘" + tool + "’");
         }
@@ -0,0 +1,51 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import java.util.function.Supplier;
+
+/**
+ * Adds the actions that record the Ant steps of a build, which are only attached once there is something to record.
+ */
+final class AntActions {
+    private AntActions() {}
+
+    /**
+     * Gets the action of the given type of a build, adding one if needed, so that steps running at the same time share it.
+     *
+     * @param create makes the action; only called when the caller is about to give it data
+     */
+    static <A extends Action> A of(Run<?,?> build, Class<A> type, Supplier<A> create) {
+        synchronized (build) {
+            A a = build.getAction(type);
+            if (a == null) {
+                a = create.get();
+                build.addOrReplaceAction(a);
+            }
+            return a;
+        }
+    }
+}
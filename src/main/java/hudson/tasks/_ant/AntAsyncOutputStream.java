@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the output of Ant in memory and writes it to the build log from a thread of its own,
+ * so that the log gets few large writes rather than many small ones.
+ *
+ * <p>
+ * It is used on the controller, where the build log is. For Ant on the controller, the thread reading the output of
+ * Ant no longer waits for the log on every chunk, so Ant does not stall on a slow disk. For Ant on an agent, the output
+ * is copied on the agent and sent over the channel as before, in the same frames; what changes is only that the
+ * thread receiving it on the controller hands it over instead of writing the log itself.
+ *
+ * <p>
+ * Bytes are written on in the order they came, in chunks, once {@link #FLUSH_SIZE} bytes are waiting
+ * or the oldest of them waited for {@link #FLUSH_MILLIS}; the log is flushed whenever the buffer runs empty or {@link #flush()} asks for it.
+ * Writers only wait when the buffer of {@link #BUFFER_SIZE} bytes is full.
+ * {@link #flush()} and {@link #close()} wait until everything written before them is in the log.
+ * Anything that stops the writing thread, such as an {@link IOException} writing to the log, is thrown from the next call.
+ *
+ * @since TODO
+ */
+public final class AntAsyncOutputStream extends OutputStream {
+    /**
+     * Whether the Ant build step writes its output through this stream.
+     */
+    @SuppressFBWarnings(value="MS_SHOULD_BE_FINAL", justification="Tunable from the script console")
+    public static boolean ENABLED = Boolean.getBoolean(AntAsyncOutputStream.class.getName()+".enabled");
+
+    /**
+     * How many bytes of output to hold at most.
+     */
+    public static final int BUFFER_SIZE = Integer.getInteger(AntAsyncOutputStream.class.getName()+".bufferSize", 1024*1024);
+
+    /**
+     * How many bytes waiting get written without waiting any longer.
+     */
+    public static final int FLUSH_SIZE = Integer.getInteger(AntAsyncOutputStream.class.getName()+".flushSize", 64*1024);
+
+    /**
+     * How long output may wait before it is written.
+     */
+    public static final long FLUSH_MILLIS = Long.getLong(AntAsyncOutputStream.class.getName()+".flushMillis", 200);
+
+    private final OutputStream out;
+    private final byte[] ring;
+    private final int flushSize;
+    private final long flushNanos;
+    private final Thread writer;
+
+    // all guarded by this
+    /** Position in {@link #ring} of the first byte waiting. */
+    private int head;
+    /** Number of bytes waiting. */
+    private int size;
+    /** When the buffer last stopped being empty. */
+    private long waitingSince;
+    /** Number of bytes written to this stream, to the log, and flushed to the log so far. */
+    private long accepted, written, flushed;
+    /** How far {@link #flushed} has to get for the callers of {@link #flush()}. */
+    private long flushRequested;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * @param name what the output is of, to name the writing thread
+     */
+    public AntAsyncOutputStream(OutputStream out, String name) {
+        this(out, name, BUFFER_SIZE, FLUSH_SIZE, FLUSH_MILLIS);
+    }
+
+    AntAsyncOutputStream(OutputStream out, String name, int bufferSize, int flushSize, long flushMillis) {
+        this.out = out;
+        this.ring = new byte[bufferSize];
+        this.flushSize = Math.min(flushSize, bufferSize);
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.writer = new NamingThreadFactory(new DaemonThreadFactory(), "Ant output of " + name).newThread(this::run);
+        writer.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            check();
+            while (size == ring.length) {
+                AntMetrics.count("ant_async_output_stalls_total", 1);
+                await();
+                check();
+            }
+            int tail = (head + size) % ring.length;
+            int n = Math.min(len, Math.min(ring.length - size, ring.length - tail));
+            System.arraycopy(b, off, ring, tail, n);
+            if (size == 0) {
+                waitingSince = System.nanoTime();
+            }
+            size += n;
+            accepted += n;
+            off += n;
+            len -= n;
+            if (size >= flushSize) {
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        check();
+        flushRequested = Math.max(flushRequested, accepted);
+        notifyAll();
+        while (flushed < flushRequested) {
+            await();
+            check();
+        }
+    }
+
+    /**
+     * Writes out everything, stops the writing thread, and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException().initCause(x);
+        }
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    throw new IOException(failure);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void check() throws IOException {
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        if (closed) {
+            throw new IOException("closed");
+        }
+    }
+
+    private void await() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException().initCause(x);
+        }
+    }
+
+    /**
+     * Takes chunks of the buffer and writes them out, until closed and empty.
+     */
+    private void run() {
+        byte[] chunk = new byte[flushSize];
+        try {
+            while (true) {
+                int n;
+                boolean flush;
+                synchronized (this) {
+                    while (!due()) {
+                        if (size == 0) {
+                            wait();
+                        } else {
+                            long left = waitingSince + flushNanos - System.nanoTime();
+                            if (left > 0) {
+                                TimeUnit.NANOSECONDS.timedWait(this, left);
+                            }
+                        }
+                    }
+                    if (size == 0) { // closed, and all written
+                        return;
+                    }
+                    n = Math.min(Math.min(size, chunk.length), ring.length - head);
+                    System.arraycopy(ring, head, chunk, 0, n);
+                    head = (head + n) % ring.length;
+                    size -= n;
+                    flush = size == 0 || flushRequested > flushed;
+                    // there is room again
+                    notifyAll();
+                }
+                out.write(chunk, 0, n);
+                if (flush) {
+                    out.flush();
+                }
+                synchronized (this) {
+                    written += n;
+                    if (flush) {
+                        flushed = written;
+                    }
+                    notifyAll();
+                }
+            }
+        } catch (IOException x) {
+            fail(x);
+        } catch (Throwable x) {
+            // whatever stops this thread, the callers waiting for it must not wait forever
+            fail(new IOException(x));
+            if (x instanceof Error) {
+                throw (Error) x;
+            }
+        }
+    }
+
+    /**
+     * Whether there is something to write now rather than later.
+     */
+    private boolean due() {
+        return closed || size >= flushSize || flushRequested > written
+                || size > 0 && System.nanoTime() - waitingSince >= flushNanos;
+    }
+
+    private synchronized void fail(IOException x) {
+        failure = x;
+        // nothing more will be taken
+        size = 0;
+        notifyAll();
+    }
+}
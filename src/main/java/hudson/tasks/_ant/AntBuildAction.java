@@ -0,0 +1,303 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.console.PlainTextConsoleOutputStream;
+import hudson.model.Run;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jenkins.model.RunAction2;
+import org.apache.commons.jelly.XMLOutput;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+/**
+ * Lists the Ant targets executed by a build, with their wall-clock time.
+ *
+ * @since TODO
+ */
+public class AntBuildAction implements RunAction2 {
+    /** How many targets {@link #getSlowestTargets} returns. */
+    private static final int SLOWEST = 10;
+
+    private transient Run<?,?> run;
+
+    /** Targets of all Ant invocations of the build, in execution order. */
+    private final List<AntTarget> targets = new CopyOnWriteArrayList<>();
+
+    /** Where and why Ant failed, as reported by {@link AntEventListener}, or null. */
+    private volatile String failure;
+
+    public Run<?,?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?,?> r) {
+        run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?,?> r) {
+        run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return targets.isEmpty() ? null : "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.AntBuildAction_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ant";
+    }
+
+    public List<AntTarget> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Gets the targets that took the longest, slowest first.
+     */
+    public List<AntTarget> getSlowestTargets() {
+        List<AntTarget> r = new ArrayList<>(targets);
+        r.sort(Comparator.comparingLong(AntTarget::getDuration).reversed());
+        return r.subList(0, Math.min(SLOWEST, r.size()));
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Gets the targets recorded in the {@link AntTargetIndex} of this build, in the order they started.
+     */
+    public List<AntTargetIndex.Entry> getOutline() throws IOException {
+        return AntTargetIndex.read(AntTargetIndex.of(run));
+    }
+
+    /**
+     * Serves {@code target/<n>/}, the log from the start of the n-th target in {@link #getOutline},
+     * and {@code target/<name>/}, the same for the first target of that name.
+     */
+    public TargetLog getTarget(String token) throws IOException {
+        List<AntTargetIndex.Entry> outline = getOutline();
+        int i;
+        try {
+            i = Integer.parseInt(token);
+        } catch (NumberFormatException x) {
+            for (AntTargetIndex.Entry e : outline) {
+                if (e.getName().equals(token)) {
+                    return new TargetLog(e);
+                }
+            }
+            return null;
+        }
+        return i>=0 && i<outline.size() ? new TargetLog(outline.get(i)) : null;
+    }
+
+    /**
+     * The build log from the start of one target, read from its offset in the log file rather than from the beginning.
+     */
+    public final class TargetLog {
+        private final AntTargetIndex.Entry entry;
+
+        private TargetLog(AntTargetIndex.Entry entry) {
+            this.entry = entry;
+        }
+
+        public AntTargetIndex.Entry getEntry() {
+            return entry;
+        }
+
+        public Run<?,?> getRun() {
+            return run;
+        }
+
+        /**
+         * Writes the log as HTML, from the target to the end.
+         */
+        public void writeLogTo(XMLOutput out) throws IOException {
+            run.getLogText().writeHtmlTo(entry.getOffset(), out.asWriter());
+        }
+
+        /**
+         * Serves the log as plain text, from the target to the end.
+         */
+        public void doConsoleText(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+            rsp.setContentType("text/plain;charset=UTF-8");
+            try (OutputStream out = rsp.getOutputStream()) {
+                run.getLogText().writeLogTo(entry.getOffset(), out);
+            }
+        }
+
+        /**
+         * Serves the output of the target alone as plain text, read from its range of the log file
+         * so that it takes as long as the output of the target, however long the log is;
+         * unless the log was compressed, when it has to be read up to the target.
+         */
+        public void doLog(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+            File log = run.getLogFile();
+            if (!log.isFile()) {
+                rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            rsp.setContentType("text/plain;charset=UTF-8");
+            try (OutputStream out = new PlainTextConsoleOutputStream(rsp.getOutputStream())) {
+                AntTargetIndex.writeRange(log, entry.getOffset(), entry.getEnd(), out);
+            }
+        }
+    }
+
+    /**
+     * Creates a listener that adds the targets of one Ant invocation to this action.
+     */
+    public Recorder record() {
+        return new Recorder();
+    }
+
+    /**
+     * Creates a handler that adds the targets of one Ant invocation to this action, from the events of {@link AntEventListener}.
+     */
+    public EventRecorder recordEvents() {
+        return new EventRecorder();
+    }
+
+    /**
+     * Times targets from the start announced by {@link AntConsoleAnnotator} until the next one starts,
+     * the outcome is printed, or {@link #finish} is called.
+     */
+    public final class Recorder implements AntConsoleAnnotator.Listener {
+        private String current;
+        private long start;
+
+        private Recorder() {}
+
+        @Override
+        public void targetStarted(String name, int line) {
+            long now = System.currentTimeMillis();
+            finish(now);
+            current = name;
+            start = now;
+        }
+
+        @Override
+        public void outcome(boolean success, int line) {
+            finish(System.currentTimeMillis());
+        }
+
+        /**
+         * Ends the running target, if any; to be called once the Ant process is gone.
+         */
+        public void finish() {
+            finish(System.currentTimeMillis());
+        }
+
+        private void finish(long now) {
+            if (current!=null) {
+                targets.add(new AntTarget(current, start, now-start));
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Times targets from their exact start and finish events, which may nest through {@code antcall} or {@code subant}.
+     * Targets are added as soon as they and all the targets started before them have finished.
+     */
+    public final class EventRecorder extends AntEvents.Handler {
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> times = new ArrayList<>();
+        /** How many of {@link #names} were added to the action. */
+        private int added;
+        private long last;
+
+        private EventRecorder() {}
+
+        @Override
+        public void targetStarted(long time, String name) {
+            names.add(name);
+            times.add(new long[] {time, -1});
+            last = time;
+        }
+
+        @Override
+        public void targetFinished(long time, String name, boolean failed) {
+            // the innermost running target of that name
+            for (int i = names.size()-1; i>=added; i--) {
+                if (times.get(i)[1]<0 && names.get(i).equals(name)) {
+                    times.get(i)[1] = time;
+                    break;
+                }
+            }
+            last = time;
+            while (added<names.size() && times.get(added)[1]>=0) {
+                add(added++, -1);
+            }
+        }
+
+        @Override
+        public void messageLogged(long time, int priority) {
+            last = time;
+        }
+
+        @Override
+        public void buildFinished(long time, String error, String file, int line) {
+            if (error!=null) {
+                failure = file.isEmpty() ? error : file + ":" + line + ": " + error;
+            }
+            last = time;
+        }
+
+        /**
+         * Adds the targets in the order they started; those that never finished end with the last event.
+         */
+        public void finish() {
+            for (int i = added; i<names.size(); i++) {
+                add(i, last);
+            }
+            names.clear();
+            times.clear();
+            added = 0;
+        }
+
+        private void add(int i, long unfinished) {
+            long[] t = times.get(i);
+            long end = t[1]<0 ? unfinished : t[1];
+            targets.add(new AntTarget(names.get(i), t[0], end-t[0]));
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.Ant.AntInstallation;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolProperty;
+import hudson.tools.ToolPropertyDescriptor;
+import hudson.util.ArgumentListBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.security.MasterToSlaveCallable;
+import jenkins.slaves.WorkspaceList;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Marks an {@link AntInstallation} to start faster with a dynamic Application Class Data Sharing archive of its classes,
+ * kept on each node for each pair of installation and JDK.
+ *
+ * <p>
+ * The archive is dumped by the first run of Ant, and used by the following ones. On Java 19 and later the JVM maintains
+ * it with {@code -XX:+AutoCreateSharedArchive}; on Java 13 to 18 it is dumped with {@code -XX:ArchiveClassesAtExit}.
+ * It is named after the Ant and Java versions and the jars in {@code ANT_HOME/lib}, so that changing any of them
+ * creates a new one. How long the JVM took to start Ant is measured with {@link AntStartupListener}, the first time
+ * without the archive, and compared on every run.
+ *
+ * @since TODO
+ */
+public class AntClassDataSharing extends ToolProperty<AntInstallation> {
+    /** Options of the user that decide about class data sharing themselves. */
+    private static final Pattern USER_OPTION = Pattern.compile(
+            "(^|\\s)-(Xshare:|XX:SharedArchiveFile=|XX:ArchiveClassesAtExit=|XX:[+-]AutoCreateSharedArchive)");
+
+    private static byte[] listenerJar;
+
+    @DataBoundConstructor
+    public AntClassDataSharing() {}
+
+    @Override
+    public Class<AntInstallation> type() {
+        return AntInstallation.class;
+    }
+
+    /**
+     * Whether the given {@code ANT_OPTS} already configure class data sharing, in which case they are left alone.
+     */
+    public static boolean isConfigured(String antOpts) {
+        return USER_OPTION.matcher(antOpts).find();
+    }
+
+    /**
+     * Decides how the next run of Ant uses the archive of the installation and JDK on the node.
+     *
+     * @return the plan, or null if the node is offline
+     */
+    public static Plan prepare(Node node, String antHome, String javaHome) throws IOException, InterruptedException {
+        FilePath root = node.getRootPath();
+        return root == null ? null : root.child("caches/ant-cds").act(new Prepare(antHome, javaHome));
+    }
+
+    /**
+     * Adds the options that make Ant report how long it took to start, and returns the file it will be written to.
+     *
+     * @return the file, or null if the listener could not be injected
+     * @see AntEvents#inject
+     */
+    public static FilePath inject(FilePath workspace, ArgumentListBuilder args, EnvVars env) throws IOException, InterruptedException {
+        FilePath tmp = WorkspaceList.tempDir(workspace);
+        if (tmp==null) {
+            return null;
+        }
+        tmp.mkdirs();
+        FilePath jar = tmp.child("ant-startup-listener.jar");
+        jar.copyFrom(new ByteArrayInputStream(listenerJar()));
+        FilePath file = tmp.createTempFile("ant-startup", ".txt");
+        args.add("-lib", jar.getRemote());
+        args.add("-listener", AntStartupListener.class.getName());
+        env.put(AntStartupListener.FILE_VARIABLE, file.getRemote());
+        return file;
+    }
+
+    private static synchronized byte[] listenerJar() {
+        if (listenerJar==null) {
+            listenerJar = Jars.of(AntStartupListener.class);
+        }
+        return listenerJar;
+    }
+
+    /**
+     * Keeps the archive dumped by a run that created it, and tells how long Ant took to start.
+     *
+     * @param startupFile as returned by {@link #inject}, or null
+     * @return what to print in the build log
+     */
+    public static String finish(Node node, Plan plan, FilePath startupFile) throws IOException, InterruptedException {
+        long startup = -1;
+        if (startupFile != null) {
+            try {
+                startup = Long.parseLong(startupFile.readToString().trim());
+            } catch (NumberFormatException x) {
+                // Ant did not get to start the build
+            } finally {
+                startupFile.delete();
+            }
+        }
+        VirtualChannel channel = node.getChannel();
+        if (plan.creating && channel != null) {
+            channel.call(new Finish(plan, startup));
+        }
+        if (plan.creating) {
+            return startup < 0 ? Messages.AntClassDataSharing_Created() : Messages.AntClassDataSharing_CreatedStartup(startup);
+        }
+        if (startup < 0 || plan.baseline < 0) {
+            return Messages.AntClassDataSharing_Used();
+        }
+        AntMetrics.count("ant_cds_startup_saved_milliseconds_total", Math.max(0, plan.baseline - startup));
+        return Messages.AntClassDataSharing_Saved(startup, plan.baseline - startup);
+    }
+
+    /**
+     * Gets the feature version of Java from its full version, such as 17 from {@code 17.0.2} or 8 from {@code 1.8.0_292}.
+     *
+     * @return the feature version, or -1 if unknown
+     */
+    static int feature(String version) {
+        String[] parts = version.split("[._+-]");
+        try {
+            int feature = Integer.parseInt(parts[0]);
+            return feature == 1 && parts.length > 1 ? Integer.parseInt(parts[1]) : feature;
+        } catch (NumberFormatException x) {
+            return -1;
+        }
+    }
+
+    /**
+     * How a run of Ant uses the archive.
+     */
+    public static final class Plan implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** Version of Java running Ant. */
+        final String javaVersion;
+        /** Options to add to {@code ANT_OPTS}; empty if this version of Java cannot dump an archive. */
+        final List<String> options;
+        final String archive;
+        /** Where the run dumps the archive, if not to {@link #archive} directly. */
+        final String dump;
+        /** Whether the run creates the archive rather than using it. */
+        final boolean creating;
+        /** Milliseconds Ant took to start without the archive, or -1 if unknown. */
+        final long baseline;
+
+        Plan(String javaVersion, List<String> options, String archive, String dump, boolean creating, long baseline) {
+            this.javaVersion = javaVersion;
+            this.options = options;
+            this.archive = archive;
+            this.dump = dump;
+            this.creating = creating;
+            this.baseline = baseline;
+        }
+
+        public List<String> getOptions() {
+            return options;
+        }
+
+        public String getJavaVersion() {
+            return javaVersion;
+        }
+
+        public boolean isCreating() {
+            return creating;
+        }
+    }
+
+    static final class Prepare extends MasterToSlaveFileCallable<Plan> {
+        private static final long serialVersionUID = 1L;
+
+        private final String antHome;
+        private final String javaHome;
+
+        Prepare(String antHome, String javaHome) {
+            this.antHome = antHome;
+            this.javaHome = javaHome;
+        }
+
+        @Override
+        public Plan invoke(File dir, VirtualChannel channel) throws IOException {
+            String javaVersion = AntFingerprint.Compute.javaVersion(javaHome);
+            int feature = feature(javaVersion);
+            if (feature < 13) {
+                return new Plan(javaVersion, new ArrayList<>(), null, null, false, -1);
+            }
+            String pair = hash(antHome, javaHome);
+            String name = pair + "-" + hash(versions(javaVersion));
+            File archive = new File(dir, name + ".jsa");
+            File baseline = new File(dir, name + ".startup");
+            List<String> options = new ArrayList<>();
+            if (archive.isFile()) {
+                if (feature >= 19) {
+                    options.add("-XX:+AutoCreateSharedArchive");
+                }
+                options.add("-XX:SharedArchiveFile=" + archive);
+                long startup = -1;
+                if (baseline.isFile()) {
+                    try {
+                        startup = Long.parseLong(Files.readString(baseline.toPath(), StandardCharsets.US_ASCII).trim());
+                    } catch (NumberFormatException x) {
+                        // written by another version
+                    }
+                }
+                return new Plan(javaVersion, options, archive.getPath(), null, false, startup);
+            }
+            Files.createDirectories(dir.toPath());
+            // the files of the pair for other versions are left from before the installation or JDK changed;
+            // those of this version belong to runs going on now, apart from dumps left by a run that was killed
+            long abandoned = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+            File[] stale = dir.listFiles((d, n) -> n.startsWith(pair + "-"));
+            if (stale != null) {
+                for (File f : stale) {
+                    if (f.getName().startsWith(name + ".") && (!f.getName().endsWith(".tmp") || f.lastModified() >= abandoned)) {
+                        continue;
+                    }
+                    try {
+                        Files.deleteIfExists(f.toPath());
+                    } catch (IOException x) {
+                        // still in use, such as an archive mapped by a running JVM on Windows; tried again next time
+                    }
+                }
+            }
+            String dump;
+            if (feature >= 19) {
+                options.add("-XX:+AutoCreateSharedArchive");
+                options.add("-XX:SharedArchiveFile=" + archive);
+                dump = null;
+            } else {
+                // dumped aside and moved in place, so that concurrent runs never see a partial archive
+                dump = new File(dir, name + "." + UUID.randomUUID() + ".tmp").getPath();
+                options.add("-XX:ArchiveClassesAtExit=" + dump);
+            }
+            return new Plan(javaVersion, options, archive.getPath(), dump, true, -1);
+        }
+
+        /**
+         * Lists what the archive depends on besides the locations of the installation and JDK.
+         */
+        private String[] versions(String javaVersion) {
+            List<String> r = new ArrayList<>();
+            r.add(javaVersion);
+            r.add(AntFingerprint.Compute.antVersion(antHome));
+            File[] jars = new File(antHome, "lib").listFiles((d, n) -> n.endsWith(".jar"));
+            if (jars != null) {
+                Arrays.sort(jars);
+                for (File jar : jars) {
+                    r.add(jar.getName() + ":" + jar.length() + ":" + jar.lastModified());
+                }
+            }
+            return r.toArray(new String[0]);
+        }
+
+        private static String hash(String... parts) {
+            MessageDigest md;
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException x) {
+                throw new AssertionError(x);
+            }
+            for (String p : parts) {
+                md.update(Util.fixNull(p).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            return Util.toHexString(md.digest()).substring(0, 16);
+        }
+    }
+
+    static final class Finish extends MasterToSlaveCallable<Void, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final Plan plan;
+        private final long startup;
+
+        Finish(Plan plan, long startup) {
+            this.plan = plan;
+            this.startup = startup;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            File archive = new File(plan.archive);
+            if (plan.dump != null) {
+                File dump = new File(plan.dump);
+                if (!dump.isFile()) {
+                    return null;
+                }
+                Files.move(dump.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (startup >= 0 && archive.isFile()) {
+                File baseline = new File(archive.getParentFile(), archive.getName().replaceFirst("\\.jsa$", ".startup"));
+                Files.writeString(baseline.toPath(), Long.toString(startup), StandardCharsets.US_ASCII);
+            }
+            return null;
+        }
+    }
+
+    @Extension @Symbol("classDataSharing")
+    public static class DescriptorImpl extends ToolPropertyDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.AntClassDataSharing_DisplayName();
+        }
+
+        @Override
+        public boolean isApplicable(Class<? extends ToolInstallation> toolType) {
+            return toolType==AntInstallation.class;
+        }
+    }
+}
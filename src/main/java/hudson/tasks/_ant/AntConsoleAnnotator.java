@@ -34,30 +34,88 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import jenkins.util.JenkinsJVM;
 
 /**
  * Filter {@link OutputStream} that places an annotation that marks Ant target execution.
+ *
+ * <p>
+ * Lines longer than {@link #MAX_LINE_LENGTH} are not buffered whole: past that length they are passed on as they come,
+ * and never annotated, since neither target names nor outcomes get that long.
  * 
  * @author Kohsuke Kawaguchi
  * @since 1.349
  */
 public class AntConsoleAnnotator extends LineTransformationOutputStream {
+    /**
+     * How many bytes of a line to buffer before passing the rest of it on unbuffered; 0 to always buffer whole lines.
+     *
+     * @since TODO
+     */
+    public static final int MAX_LINE_LENGTH = Integer.getInteger(AntConsoleAnnotator.class.getName()+".maxLineLength", 64*1024);
+
     private final OutputStream out;
     private final Charset charset;
-    /** Serialized, signed, and Base64-encoded forms of {@link AntTargetNote} and {@link AntOutcomeNote} respectively. */
+    /**
+     * Whether {@link #charset} maps ASCII to single bytes of the same value and never uses bytes below 0x80
+     * inside multi-byte sequences, so lines can be classified without decoding them.
+     */
+    private final boolean asciiCompatible;
+    /** Serialized, signed, and Base64-encoded forms of {@link AntTargetNote} and of {@link AntOutcomeNote} for success and failure respectively. */
     private final byte[][] antNotes;
+    /** Notified of targets and outcomes as they are seen, or null. */
+    private final Listener listener;
+
+    /** Replaces {@link #MAX_LINE_LENGTH} in tests. */
+    int maxLineLength = MAX_LINE_LENGTH;
+    /** Bytes buffered of the current line. */
+    private int buffered;
+    /** Whether the current line went over {@link #maxLineLength}, so that its remainder is passed on unbuffered. */
+    private boolean longLine;
+    /** Number of long lines seen so far. */
+    private int longLines;
+    private int publishedLongLines;
 
     private boolean seenEmptyLine;
+    /** Number of lines seen so far. */
+    private int lines;
+    private long bytes;
+    private int notes;
+    /** What of the above was already passed on to {@link AntMetrics}. */
+    private int publishedLines;
+    private long publishedBytes;
+    private int publishedNotes;
+
+    private static final byte[] BUILD_SUCCESSFUL = "BUILD SUCCESSFUL".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BUILD_FAILED = "BUILD FAILED".getBytes(StandardCharsets.US_ASCII);
 
     public AntConsoleAnnotator(OutputStream out, Charset charset) {
-        this(out, charset, createAntNotes());
+        this(out, charset, createAntNotes(), null);
     }
 
-    private AntConsoleAnnotator(OutputStream out, Charset charset, byte[][] antNotes) {
+    /**
+     * @param listener notified of every target start and build outcome detected in the output
+     * @since TODO
+     */
+    public AntConsoleAnnotator(OutputStream out, Charset charset, Listener listener) {
+        this(out, charset, createAntNotes(), listener);
+    }
+
+    AntConsoleAnnotator(OutputStream out, Charset charset, byte[][] antNotes, Listener listener) {
         this.out = out;
         this.charset = charset;
+        this.asciiCompatible = isAsciiCompatible(charset);
         this.antNotes = antNotes;
+        this.listener = listener;
+    }
+
+    static boolean isAsciiCompatible(Charset charset) {
+        String name = charset.name();
+        return name.equals("UTF-8") || name.equals("US-ASCII")
+                || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
     }
 
     private static byte[][] createAntNotes() {
@@ -65,30 +123,140 @@ public class AntConsoleAnnotator extends LineTransformationOutputStream {
         try {
             ByteArrayOutputStream targetNote = new ByteArrayOutputStream();
             new AntTargetNote().encodeTo(targetNote);
-            ByteArrayOutputStream outcomeNote = new ByteArrayOutputStream();
-            new AntOutcomeNote().encodeTo(outcomeNote);
-            return new byte[][] {targetNote.toByteArray(), outcomeNote.toByteArray()};
+            ByteArrayOutputStream successNote = new ByteArrayOutputStream();
+            new AntOutcomeNote(true).encodeTo(successNote);
+            ByteArrayOutputStream failureNote = new ByteArrayOutputStream();
+            new AntOutcomeNote(false).encodeTo(failureNote);
+            return new byte[][] {targetNote.toByteArray(), successNote.toByteArray(), failureNote.toByteArray()};
         } catch (IOException x) { // should be impossible
             throw new RuntimeException(x);
         }
     }
 
+    @Override
+    public void write(int b) throws IOException {
+        if (longLine) {
+            out.write(b);
+            bytes++;
+            if (b=='\n')
+                endLongLine();
+            return;
+        }
+        super.write(b);
+        if (b=='\n') {
+            buffered = 0;
+        } else if (++buffered==maxLineLength) {
+            startLongLine();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int end = off+len;
+        while (off<end) {
+            if (longLine) {
+                // pass the rest of a long line on in one go rather than a byte at a time
+                int i = off;
+                while (i<end && b[i]!='\n')
+                    i++;
+                if (i<end)
+                    i++;
+                out.write(b,off,i-off);
+                bytes += i-off;
+                if (b[i-1]=='\n')
+                    endLongLine();
+                off = i;
+            } else {
+                write(b[off++]);
+            }
+        }
+    }
+
+    /**
+     * Passes on what was buffered of the current line, unannotated, and the rest of it as it comes.
+     */
+    private void startLongLine() throws IOException {
+        longLine = true;
+        // hands the buffer to eol, which passes it on as is while longLine is set
+        super.forceEol();
+        buffered = 0;
+    }
+
+    private void endLongLine() {
+        longLine = false;
+        longLines++;
+        lines++;
+        seenEmptyLine = false;
+    }
+
     @Override
     protected void eol(byte[] b, int len) throws IOException {
+        if (longLine) {
+            out.write(b,0,len);
+            bytes += len;
+            return;
+        }
+        if (asciiCompatible) {
+            eolAscii(b, len);
+        } else {
+            eolDecoded(b, len);
+        }
+        out.write(b,0,len);
+        lines++;
+        bytes += len;
+    }
+
+    /**
+     * Classifies the line directly on its bytes; equivalent to {@link #eolDecoded} for ASCII-compatible charsets.
+     */
+    private void eolAscii(byte[] b, int len) throws IOException {
+        // trim off CR/LF from the end
+        int end = len;
+        while (end>0 && (b[end-1]=='\n' || b[end-1]=='\r'))
+            end--;
+
+        if (seenEmptyLine && end>0 && b[end-1]==':' && indexOf(b,end,(byte)' ')<0) {
+            // tell the listener first, so that it sees the line with its annotation still to come
+            if (listener!=null)
+                listener.targetStarted(new String(b,0,end-1,charset), lines);
+            out.write(antNotes[0]);
+            notes++;
+        }
+
+        boolean success = equals(b,end,BUILD_SUCCESSFUL);
+        if (success || equals(b,end,BUILD_FAILED)) {
+            if (listener!=null)
+                listener.outcome(success, lines);
+            out.write(antNotes[success ? 1 : 2]);
+            notes++;
+        }
+
+        seenEmptyLine = end==0;
+    }
+
+    private void eolDecoded(byte[] b, int len) throws IOException {
         String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
 
         // trim off CR/LF from the end
         line = trimEOL(line);
 
-        if (seenEmptyLine && endsWith(line,':') && line.indexOf(' ')<0)
-            // put the annotation
+        if (seenEmptyLine && endsWith(line,':') && line.indexOf(' ')<0) {
+            // tell the listener first, so that it sees the line with its annotation still to come
+            if (listener!=null)
+                listener.targetStarted(line.substring(0,line.length()-1), lines);
             out.write(antNotes[0]);
+            notes++;
+        }
 
-        if (line.equals("BUILD SUCCESSFUL") || line.equals("BUILD FAILED"))
-            out.write(antNotes[1]);
+        boolean success = line.equals("BUILD SUCCESSFUL");
+        if (success || line.equals("BUILD FAILED")) {
+            if (listener!=null)
+                listener.outcome(success, lines);
+            out.write(antNotes[success ? 1 : 2]);
+            notes++;
+        }
 
         seenEmptyLine = line.length()==0;
-        out.write(b,0,len);
     }
 
     private boolean endsWith(String line, char c) {
@@ -96,6 +264,43 @@ public class AntConsoleAnnotator extends LineTransformationOutputStream {
         return len>0 && line.charAt(len-1)==c;
     }
 
+    private static int indexOf(byte[] b, int len, byte c) {
+        for (int i=0; i<len; i++) {
+            if (b[i]==c)
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean equals(byte[] b, int len, byte[] expected) {
+        if (len!=expected.length)
+            return false;
+        for (int i=0; i<len; i++) {
+            if (b[i]!=expected[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Also passes on what was counted so far to {@link AntMetrics}, rather than on every line.
+     */
+    @Override
+    public void forceEol() throws IOException {
+        super.forceEol();
+        buffered = 0;
+        if (longLine)
+            endLongLine();
+        AntMetrics.count("ant_annotated_lines_total", lines - publishedLines);
+        AntMetrics.count("ant_long_lines_total", longLines - publishedLongLines);
+        AntMetrics.count("ant_annotated_bytes_total", bytes - publishedBytes);
+        AntMetrics.count("ant_notes_total", notes - publishedNotes);
+        publishedLines = lines;
+        publishedBytes = bytes;
+        publishedNotes = notes;
+        publishedLongLines = longLines;
+    }
+
     @Override
     public void flush() throws IOException {
         out.flush();
@@ -107,6 +312,55 @@ public class AntConsoleAnnotator extends LineTransformationOutputStream {
         out.close();
     }
 
+    /**
+     * Receives what {@link AntConsoleAnnotator} recognizes in the Ant output, on the thread writing to it.
+     *
+     * @since TODO
+     */
+    public interface Listener {
+        /**
+         * Called when the line announcing a new target has been seen, before it is written out.
+         *
+         * @param line the number of lines written out before this one
+         */
+        void targetStarted(String name, int line);
+
+        /**
+         * Called when the {@code BUILD SUCCESSFUL} or {@code BUILD FAILED} line has been seen, before it is written out.
+         *
+         * @param line the number of lines written out before this one
+         */
+        void outcome(boolean success, int line);
+
+        /**
+         * Combines listeners, skipping nulls.
+         *
+         * @return a listener notifying all the given ones in order, or null if there are none
+         */
+        static Listener all(Listener... listeners) {
+            List<Listener> r = new ArrayList<>();
+            for (Listener l : listeners) {
+                if (l!=null)
+                    r.add(l);
+            }
+            if (r.size()<=1)
+                return r.isEmpty() ? null : r.get(0);
+            return new Listener() {
+                @Override
+                public void targetStarted(String name, int line) {
+                    for (Listener l : r)
+                        l.targetStarted(name, line);
+                }
+
+                @Override
+                public void outcome(boolean success, int line) {
+                    for (Listener l : r)
+                        l.outcome(success, line);
+                }
+            };
+        }
+    }
+
     public static ConsoleLogFilter asConsoleLogFilter() {
         return new ConsoleLogFilterImpl();
     }
@@ -114,13 +368,13 @@ public class AntConsoleAnnotator extends LineTransformationOutputStream {
         private static final long serialVersionUID = 1;
         private byte[][] antNotes = createAntNotes();
         private Object readResolve() {
-            if (antNotes == null) { // old program.dat
+            if (antNotes == null || antNotes.length < 3) { // old program.dat
                 antNotes = createAntNotes();
             }
             return this;
         }
         @Override public OutputStream decorateLogger(Run build, OutputStream logger) throws IOException, InterruptedException {
-            return new AntConsoleAnnotator(logger, Charsets.UTF_8, antNotes);
+            return new AntConsoleAnnotator(logger, Charsets.UTF_8, antNotes, null);
         }
     }
 
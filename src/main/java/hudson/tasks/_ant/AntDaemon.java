@@ -0,0 +1,389 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.tools.ant.Main;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.launch.AntMain;
+import org.apache.tools.ant.taskdefs.launcher.CommandLauncher;
+
+/**
+ * Ant JVM kept running on an agent by {@link AntDaemonClient} to run one build after the other without starting a new JVM.
+ *
+ * <p>
+ * Started through the {@code ant} script of an installation as {@code ant -lib <jar> -main hudson.tasks._ant.AntDaemon <state file> <idle timeout>},
+ * it listens on a loopback port and writes the port, a random token, and whether it can take on the environment of a build
+ * to the state file. A request is the token, the working directory, the environment and the Ant arguments of the build;
+ * the daemon answers with the output of the build in frames of a length and that many bytes, then {@link #END} and the exit code.
+ * Builds run one at a time, each with a fresh {@link Main}, and system properties and the environment are restored after each one.
+ *
+ * <p>
+ * The environment of a running JVM cannot be changed, so the daemon changes what {@link System#getenv()} returns,
+ * which needs {@code --add-opens java.base/java.util=ALL-UNNAMED}, and has the processes started by Ant get it explicitly.
+ * The working directory becomes the {@code user.dir} of the build, as Ant looks it up for {@code -find}; Ant resolves
+ * the paths in a build file against its base directory anyway.
+ * If the client goes away in the middle of a build, the build cannot be stopped safely, so the daemon halts.
+ * It exits after no request came for the idle timeout.
+ *
+ * <p>
+ * This class runs in the Ant JVM, so it must only depend on Ant and the JDK, and is packed with its nested classes by {@link Jars}.
+ *
+ * @since TODO
+ */
+public class AntDaemon implements AntMain {
+    static final int END = -1;
+
+    @Override
+    public void startAnt(String[] args, Properties additionalUserProperties, ClassLoader coreLoader) {
+        int status = 0;
+        try {
+            run(new File(args[0]), Long.parseLong(args[1]), coreLoader);
+        } catch (IOException | RuntimeException x) {
+            x.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    private static void run(File state, long idleTimeout, ClassLoader coreLoader) throws IOException {
+        PrintStream log = System.out;
+        Output output = new Output(log);
+        // Main and the default logger print to whatever System.out is when they are created
+        PrintStream ps = new PrintStream(output, true);
+        System.setOut(ps);
+        System.setErr(ps);
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder();
+        for (byte b : random) {
+            token.append(String.format("%02x", b & 0xff));
+        }
+
+        boolean environment = Environment.init(log);
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) Math.min(Integer.MAX_VALUE, idleTimeout));
+            writeState(state, server.getLocalPort(), token.toString(), environment);
+            while (true) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException x) {
+                    log.println("Idle for " + idleTimeout + "ms, exiting");
+                    break;
+                }
+                try (Socket s = socket) {
+                    serve(s, token.toString(), output, coreLoader);
+                } catch (IOException x) {
+                    x.printStackTrace(log);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(state.toPath());
+        }
+    }
+
+    /**
+     * Writes the state file atomically, readable by its owner only since the token is all that protects the port.
+     */
+    private static void writeState(File state, int port, String token, boolean environment) throws IOException {
+        File tmp = new File(state.getPath() + ".tmp");
+        tmp.delete();
+        if (!tmp.createNewFile()) {
+            throw new IOException("Cannot create " + tmp);
+        }
+        tmp.setReadable(false, false);
+        tmp.setReadable(true, true);
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            w.write(port + "\n" + token + "\n" + environment + "\n");
+        }
+        Files.move(tmp.toPath(), state.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void serve(Socket socket, String token, Output output, ClassLoader coreLoader) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (!token.equals(in.readUTF())) {
+            return;
+        }
+        String dir = in.readUTF();
+        Map<String, String> env = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            env.put(readString(in), readString(in));
+        }
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+
+        Watchdog watchdog = new Watchdog(in);
+        watchdog.start();
+        Properties saved = (Properties) System.getProperties().clone();
+        Map<String, String> savedEnv = new HashMap<>(System.getenv());
+        Build build = new Build();
+        output.target = new Frames(out);
+        try {
+            System.setProperty("user.dir", dir);
+            Environment.replace(env);
+            build.startAnt(args, null, coreLoader);
+        } finally {
+            System.out.flush();
+            output.target = null;
+            System.setProperties(saved);
+            Environment.replace(savedEnv);
+        }
+        synchronized (out) {
+            out.writeInt(END);
+            out.writeInt(build.status);
+            out.flush();
+        }
+        watchdog.done = true;
+    }
+
+    /**
+     * Reads a string written as a length and that many bytes of UTF-8, which unlike {@link DataInputStream#readUTF}
+     * has no limit of 64k, which a {@code PATH} may come close to.
+     */
+    static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The environment that {@link System#getenv()} returns and that the processes started by Ant get.
+     */
+    static final class Environment {
+        private static Map<String, String> map;
+
+        /**
+         * Gets hold of the map behind {@link System#getenv()}, and makes the command launchers of Ant pass it on.
+         *
+         * @return whether the environment can be changed for a build
+         */
+        @SuppressWarnings("unchecked")
+        static synchronized boolean init(PrintStream log) {
+            try {
+                Map<String, String> env = System.getenv();
+                Field m = env.getClass().getDeclaredField("m");
+                m.setAccessible(true);
+                Map<String, String> writable = (Map<String, String>) m.get(env);
+                for (String name : new String[] {"vmLauncher", "shellLauncher"}) {
+                    Field f = CommandLauncher.class.getDeclaredField(name);
+                    f.setAccessible(true);
+                    CommandLauncher launcher = (CommandLauncher) f.get(null);
+                    if (launcher != null && !(launcher instanceof Inheriting)) {
+                        f.set(null, new Inheriting(launcher));
+                    }
+                }
+                map = writable;
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException x) {
+                log.println("Cannot change the environment of builds: " + x);
+                return false;
+            }
+        }
+
+        static synchronized void replace(Map<String, String> env) {
+            if (map == null) {
+                return;
+            }
+            map.clear();
+            for (Map.Entry<String, String> e : env.entrySet()) {
+                try {
+                    map.put(e.getKey(), e.getValue());
+                } catch (IllegalArgumentException x) {
+                    // not a name or value a process can have
+                }
+            }
+        }
+
+        /**
+         * The environment as {@code NAME=value} strings.
+         */
+        static synchronized String[] strings() {
+            Map<String, String> env = System.getenv();
+            String[] r = new String[env.size()];
+            int i = 0;
+            for (Map.Entry<String, String> e : env.entrySet()) {
+                r[i++] = e.getKey() + "=" + e.getValue();
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Launches processes with the environment of the build, which they would otherwise inherit from the daemon.
+     */
+    static final class Inheriting extends CommandLauncher {
+        private final CommandLauncher delegate;
+
+        Inheriting(CommandLauncher delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Process exec(Project project, String[] cmd, String[] env) throws IOException {
+            return delegate.exec(project, cmd, env != null ? env : Environment.strings());
+        }
+
+        @Override
+        public Process exec(Project project, String[] cmd, String[] env, File workingDir) throws IOException {
+            return delegate.exec(project, cmd, env != null ? env : Environment.strings(), workingDir);
+        }
+    }
+
+    /**
+     * One build, which reports its status instead of exiting.
+     */
+    static final class Build extends Main {
+        int status;
+
+        @Override
+        protected void exit(int exitCode) {
+            status = exitCode;
+        }
+    }
+
+    /**
+     * Halts the daemon when the client disconnects before the build is over, for example because it was aborted.
+     */
+    static final class Watchdog extends Thread {
+        private final InputStream in;
+        volatile boolean done;
+
+        Watchdog(InputStream in) {
+            super("AntDaemon watchdog");
+            setDaemon(true);
+            this.in = in;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (in.read() >= 0) {
+                    // the client sends nothing more
+                }
+            } catch (IOException x) {
+                // disconnected
+            }
+            if (!done) {
+                Runtime.getRuntime().halt(2);
+            }
+        }
+    }
+
+    /**
+     * Where {@link System#out} and {@link System#err} go: the current build, or the daemon log between builds.
+     */
+    static final class Output extends OutputStream {
+        private final OutputStream log;
+        volatile OutputStream target;
+
+        Output(OutputStream log) {
+            this.log = log;
+        }
+
+        private OutputStream current() {
+            OutputStream t = target;
+            return t != null ? t : log;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            current().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            current().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            current().flush();
+        }
+    }
+
+    /**
+     * Writes the output of a build as frames of a length and that many bytes.
+     */
+    static final class Frames extends OutputStream {
+        private final DataOutputStream out;
+
+        Frames(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+}
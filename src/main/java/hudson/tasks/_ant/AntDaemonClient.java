@@ -0,0 +1,425 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.CloseProofOutputStream;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Runs Ant builds in warm {@link AntDaemon}s on the agents instead of a new JVM each time.
+ *
+ * <p>
+ * Each agent keeps at most {@link #MAX_DAEMONS} daemons, each for one Ant executable and one value of the
+ * variables in {@link #KEY_VARIABLES}, and running one build at a time. A daemon is started with the environment of
+ * the agent and those variables only, so that it holds nothing of the build that started it; each build then runs with
+ * its own environment and the directory of its build file as {@code user.dir}, as a new Ant process would, and relative
+ * paths given to Ant are resolved against that directory. A build whose launcher is decorated runs in a new Ant process,
+ * since a daemon is started without going through the launcher; so does a build on a daemon that cannot change its
+ * environment. When no daemon can be used, {@link #run} returns null and the caller starts Ant as usual.
+ *
+ * @since TODO
+ */
+public final class AntDaemonClient {
+    /**
+     * How long, in milliseconds, a daemon waits for a build before exiting.
+     */
+    public static final long IDLE_TIMEOUT = Long.getLong(AntDaemonClient.class.getName()+".idleTimeout", TimeUnit.MINUTES.toMillis(30));
+
+    /**
+     * How many daemons may run on each agent.
+     */
+    public static final int MAX_DAEMONS = Integer.getInteger(AntDaemonClient.class.getName()+".maxDaemons", 2);
+
+    /**
+     * Variables that affect the Ant JVM itself, so that a build needs a daemon started with the same values.
+     */
+    static final List<String> KEY_VARIABLES = List.of("ANT_HOME", "ANT_OPTS", "ANT_ARGS", "JAVA_HOME", "CLASSPATH", "PATH");
+
+    /**
+     * Options handled by the Ant launcher before the JVM runs Ant, or changing global state.
+     */
+    private static final Set<String> UNSUPPORTED = Set.of("-lib", "-main", "-nouserlib", "-noclasspath", "-cp", "-autoproxy");
+
+    /**
+     * Options followed by a path, which Ant resolves against the working directory of the JVM rather than {@code user.dir}.
+     */
+    private static final Set<String> PATH_OPTIONS = Set.of("-buildfile", "-file", "-f", "-logfile", "-l", "-propertyfile");
+
+    /**
+     * Lets a daemon change what {@link System#getenv()} returns, see {@link AntDaemon}.
+     */
+    static final String ADD_OPENS = "--add-opens=java.base/java.util=ALL-UNNAMED";
+
+    private static byte[] daemonJar;
+    private static String daemonJarName;
+
+    private AntDaemonClient() {}
+
+    /**
+     * Runs a build in a daemon on the agent of the launcher.
+     *
+     * @param executable the {@code ant} script of the installation
+     * @param buildFile the absolute path of the build file on the agent
+     * @param args the other arguments to Ant
+     * @param env the environment Ant would be launched with
+     * @param out where the output of Ant goes
+     * @return the exit code of Ant, or null if the build has to be run in a new Ant process instead
+     */
+    public static Integer run(Node node, Launcher launcher, String executable, String buildFile, List<String> args,
+                              EnvVars env, OutputStream out, TaskListener listener) throws IOException, InterruptedException {
+        for (String arg : args) {
+            if (UNSUPPORTED.contains(arg)) {
+                listener.getLogger().println(Messages.AntDaemonClient_UnsupportedOption(arg));
+                return null;
+            }
+        }
+        // the daemon is started on the agent directly, so whatever a decorated launcher would add is missing
+        if (launcher.getClass()!=Launcher.LocalLauncher.class && launcher.getClass()!=Launcher.RemoteLauncher.class) {
+            listener.getLogger().println(Messages.AntDaemonClient_DecoratedLauncher(launcher.getClass().getName()));
+            return null;
+        }
+        VirtualChannel channel = launcher.getChannel();
+        FilePath root = node.getRootPath();
+        if (channel==null || root==null) {
+            return null;
+        }
+        Integer r = channel.call(new Request(daemonJar(), daemonJarName, root.child("ant-daemon").getRemote(),
+                executable, buildFile, args, env, new RemoteOutputStream(new CloseProofOutputStream(out))));
+        // make sure all the output has arrived
+        channel.syncLocalIO();
+        return r;
+    }
+
+    private static synchronized byte[] daemonJar() {
+        if (daemonJar==null) {
+            daemonJar = Jars.of(AntDaemon.class, AntDaemon.Build.class, AntDaemon.Watchdog.class, AntDaemon.Output.class, AntDaemon.Frames.class,
+                    AntDaemon.Environment.class, AntDaemon.Inheriting.class);
+            try {
+                daemonJarName = "ant-daemon-" + Util.toHexString(MessageDigest.getInstance("SHA-256").digest(daemonJar)).substring(0, 16) + ".jar";
+            } catch (NoSuchAlgorithmException x) {
+                throw new AssertionError(x);
+            }
+        }
+        return daemonJar;
+    }
+
+    /**
+     * Picks or starts a daemon on the agent and runs the build in it.
+     */
+    private static final class Request extends MasterToSlaveCallable<Integer, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] jar;
+        private final String jarName;
+        private final String dir;
+        private final String executable;
+        private final String buildFile;
+        private final List<String> args;
+        private final Map<String, String> env;
+        private final long idleTimeout = IDLE_TIMEOUT;
+        private final int maxDaemons = MAX_DAEMONS;
+        private final OutputStream out;
+
+        Request(byte[] jar, String jarName, String dir, String executable, String buildFile, List<String> args, Map<String, String> env, OutputStream out) {
+            this.jar = jar;
+            this.jarName = jarName;
+            this.dir = dir;
+            this.executable = executable;
+            this.buildFile = buildFile;
+            this.args = new ArrayList<>(args);
+            this.env = new TreeMap<>(env);
+            this.out = out;
+        }
+
+        @Override
+        public Integer call() throws IOException {
+            EnvVars processEnv = new EnvVars(EnvVars.masterEnvVars);
+            processEnv.overrideAll(env);
+            // what the daemon is started with: the environment of the agent, and the variables it is picked by
+            Map<String, String> daemonEnv = new TreeMap<>(EnvVars.masterEnvVars);
+            StringBuilder key = new StringBuilder(executable);
+            for (String v : KEY_VARIABLES) {
+                String value = processEnv.get(v);
+                if (value!=null) {
+                    daemonEnv.put(v, value);
+                } else {
+                    daemonEnv.remove(v);
+                }
+                key.append('\0').append(value);
+            }
+
+            // a new Ant process would be started in the directory of the build file
+            File cwd = new File(buildFile).getParentFile();
+            List<String> antArgs = new ArrayList<>();
+            antArgs.add("-file");
+            antArgs.add(buildFile);
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                antArgs.add(arg);
+                if (PATH_OPTIONS.contains(arg) && i + 1 < args.size()) {
+                    File path = new File(args.get(++i));
+                    antArgs.add(path.isAbsolute() ? path.getPath() : new File(cwd, path.getPath()).getPath());
+                }
+            }
+
+            Daemon daemon;
+            try {
+                daemon = Registry.acquire(key.toString(), maxDaemons);
+                if (daemon==null) {
+                    println(Messages.AntDaemonClient_NoneAvailable());
+                    return null;
+                }
+                if (daemon.process==null) {
+                    try {
+                        daemon.start(this, daemonEnv);
+                    } catch (IOException x) {
+                        Registry.remove(daemon);
+                        println(Messages.AntDaemonClient_StartFailed(x.getMessage()));
+                        return null;
+                    }
+                }
+            } catch (InterruptedException x) {
+                throw new IOException(x);
+            }
+
+            if (!daemon.environment) {
+                Registry.release(daemon);
+                println(Messages.AntDaemonClient_Environment());
+                return null;
+            }
+
+            println(Messages.AntDaemonClient_Running(String.valueOf(daemon.process.pid())));
+            boolean ok = false;
+            try {
+                Integer r = daemon.build(cwd.getPath(), processEnv, antArgs, out);
+                ok = true;
+                return r;
+            } finally {
+                if (ok) {
+                    Registry.release(daemon);
+                } else {
+                    daemon.process.destroy();
+                    Registry.remove(daemon);
+                }
+                // unexports the stream; it does not close the build log
+                out.close();
+            }
+        }
+
+        private void println(String message) throws IOException {
+            PrintStream ps = new PrintStream(out, true, StandardCharsets.UTF_8);
+            ps.println(message);
+            ps.flush();
+        }
+    }
+
+    /**
+     * A daemon known to this agent.
+     */
+    private static final class Daemon {
+        final String key;
+        /** Set by the one thread starting it, then read by whoever holds it. */
+        Process process;
+        File state;
+        int port;
+        String token;
+        /** Whether it can run a build with the environment of the build. */
+        boolean environment;
+        boolean busy = true;
+
+        Daemon(String key) {
+            this.key = key;
+        }
+
+        void start(Request request, Map<String, String> daemonEnv) throws IOException, InterruptedException {
+            File dir = new File(request.dir);
+            Files.createDirectories(dir.toPath());
+            File jar = new File(dir, request.jarName);
+            if (!jar.isFile()) {
+                File tmp = File.createTempFile("ant-daemon", ".tmp", dir);
+                Files.write(tmp.toPath(), request.jar);
+                if (!tmp.renameTo(jar) && !jar.isFile()) {
+                    throw new IOException("Cannot create " + jar);
+                }
+                tmp.delete();
+            }
+            state = File.createTempFile("daemon", ".state", dir);
+            state.delete();
+            File log = new File(dir, state.getName().replace(".state", ".log"));
+            ProcessBuilder pb = new ProcessBuilder(request.executable, "-lib", jar.getPath(), "-main", AntDaemon.class.getName(),
+                    state.getPath(), String.valueOf(request.idleTimeout));
+            pb.environment().clear();
+            pb.environment().putAll(daemonEnv);
+            String antOpts = daemonEnv.get("ANT_OPTS");
+            pb.environment().put("ANT_OPTS", antOpts!=null ? ADD_OPENS + " " + antOpts : ADD_OPENS);
+            pb.directory(dir);
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(log);
+            process = pb.start();
+            process.getOutputStream().close();
+
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (!state.isFile()) {
+                if (!process.isAlive()) {
+                    throw new IOException("Ant daemon exited with " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    process.destroy();
+                    throw new IOException("Ant daemon did not start within a minute, see " + log);
+                }
+                Thread.sleep(50);
+            }
+            List<String> lines = Files.readAllLines(state.toPath(), StandardCharsets.UTF_8);
+            port = Integer.parseInt(lines.get(0));
+            token = lines.get(1);
+            environment = Boolean.parseBoolean(lines.get(2));
+        }
+
+        Integer build(String cwd, Map<String, String> env, List<String> args, OutputStream out) throws IOException {
+            try (SocketChannel ch = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+                DataOutputStream o = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch)));
+                o.writeUTF(token);
+                o.writeUTF(cwd);
+                o.writeInt(env.size());
+                for (Map.Entry<String, String> e : env.entrySet()) {
+                    writeString(o, e.getKey());
+                    writeString(o, e.getValue());
+                }
+                o.writeInt(args.size());
+                for (String a : args) {
+                    o.writeUTF(a);
+                }
+                o.flush();
+
+                // reads from a channel are interrupted when the build is aborted, which closes it and makes the daemon halt
+                DataInputStream i = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch)));
+                byte[] buf = new byte[8192];
+                while (true) {
+                    int len = i.readInt();
+                    if (len==AntDaemon.END) {
+                        return i.readInt();
+                    }
+                    while (len>0) {
+                        int n = i.read(buf, 0, Math.min(len, buf.length));
+                        if (n<0) {
+                            throw new EOFException();
+                        }
+                        out.write(buf, 0, n);
+                        len -= n;
+                    }
+                }
+            } catch (ClosedByInterruptException x) {
+                throw new IOException("Aborted", x);
+            } catch (EOFException x) {
+                throw new IOException("Ant daemon exited during the build", x);
+            }
+        }
+    }
+
+    /**
+     * Counterpart of {@link AntDaemon#readString}.
+     */
+    private static void writeString(DataOutputStream o, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        o.writeInt(b.length);
+        o.write(b);
+    }
+
+    /**
+     * Daemons of this agent; lives as long as the agent is connected, and daemons exit on their own when idle.
+     */
+    private static final class Registry {
+        private static final List<Daemon> DAEMONS = new ArrayList<>();
+
+        /**
+         * Gets an idle daemon for the key, or a new one to be started, making room if needed, or null if all are busy.
+         */
+        static synchronized Daemon acquire(String key, int max) {
+            DAEMONS.removeIf(d -> !d.busy && !d.process.isAlive());
+            for (Daemon d : DAEMONS) {
+                if (!d.busy && d.key.equals(key)) {
+                    d.busy = true;
+                    return d;
+                }
+            }
+            if (DAEMONS.size()>=max) {
+                Daemon idle = null;
+                for (Daemon d : DAEMONS) {
+                    if (!d.busy) {
+                        idle = d;
+                        break;
+                    }
+                }
+                if (idle==null) {
+                    return null;
+                }
+                idle.process.destroy();
+                DAEMONS.remove(idle);
+            }
+            Daemon d = new Daemon(key);
+            DAEMONS.add(d);
+            return d;
+        }
+
+        static synchronized void release(Daemon d) {
+            d.busy = false;
+        }
+
+        static synchronized void remove(Daemon d) {
+            DAEMONS.remove(d);
+        }
+    }
+}
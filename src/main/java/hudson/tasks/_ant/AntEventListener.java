@@ -0,0 +1,219 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.Location;
+
+/**
+ * Ant {@link BuildListener} injected into the Ant process with {@code -lib}/{@code -listener}
+ * that writes compact binary events to the file named by {@value #FILE_VARIABLE}.
+ * Runs inside Ant, so it must only depend on Ant and the JDK; see {@link AntEvents} for the format.
+ *
+ * @since TODO
+ */
+public class AntEventListener implements BuildListener {
+    /** Environment variable holding the path of the event file. */
+    public static final String FILE_VARIABLE = "JENKINS_ANT_EVENT_FILE";
+
+    static final int MAGIC = 0x414e5445; // "ANTE"
+    static final byte VERSION = 1;
+
+    static final byte BUILD_STARTED = 1;
+    static final byte TARGET_STARTED = 2;
+    static final byte TARGET_FINISHED = 3;
+    static final byte TASK_STARTED = 4;
+    static final byte TASK_FINISHED = 5;
+    static final byte MESSAGE_LOGGED = 6;
+    static final byte BUILD_FINISHED = 7;
+
+    /** Keeps strings well below the 64k limit of {@link DataOutputStream#writeUTF}. */
+    private static final int MAX_STRING = 8192;
+
+    private DataOutputStream out;
+
+    public AntEventListener() throws IOException {
+        this(System.getenv(FILE_VARIABLE));
+    }
+
+    AntEventListener(String file) throws IOException {
+        if (file!=null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(file))));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+    }
+
+    @Override
+    public synchronized void buildStarted(BuildEvent event) {
+        if (begin(BUILD_STARTED)) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void buildFinished(BuildEvent event) {
+        if (begin(BUILD_FINISHED)) {
+            Throwable t = event.getException();
+            writeBoolean(t!=null);
+            if (t!=null) {
+                writeString(t.getMessage()!=null ? t.getMessage() : t.toString());
+                Location l = t instanceof BuildException ? ((BuildException) t).getLocation() : Location.UNKNOWN_LOCATION;
+                writeString(l.getFileName());
+                writeInt(l.getLineNumber());
+            }
+        }
+        if (out!=null) {
+            try {
+                out.close();
+            } catch (IOException x) {
+                // nothing we can do from within Ant
+            }
+            out = null;
+        }
+    }
+
+    @Override
+    public synchronized void targetStarted(BuildEvent event) {
+        if (begin(TARGET_STARTED)) {
+            writeString(event.getTarget().getName());
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void targetFinished(BuildEvent event) {
+        if (begin(TARGET_FINISHED)) {
+            writeString(event.getTarget().getName());
+            writeBoolean(event.getException()!=null);
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void taskStarted(BuildEvent event) {
+        if (begin(TASK_STARTED)) {
+            writeString(event.getTask().getTaskName());
+        }
+    }
+
+    @Override
+    public synchronized void taskFinished(BuildEvent event) {
+        if (begin(TASK_FINISHED)) {
+            writeString(event.getTask().getTaskName());
+            writeBoolean(event.getException()!=null);
+        }
+    }
+
+    @Override
+    public synchronized void messageLogged(BuildEvent event) {
+        if (begin(MESSAGE_LOGGED)) {
+            writeByte(event.getPriority());
+        }
+    }
+
+    /**
+     * Writes the header of an event, unless there is no event file or it could not be written.
+     */
+    private boolean begin(byte type) {
+        if (out==null) {
+            return false;
+        }
+        try {
+            out.writeByte(type);
+            out.writeLong(System.currentTimeMillis());
+            return true;
+        } catch (IOException x) {
+            out = null;
+            return false;
+        }
+    }
+
+    private void writeString(String s) {
+        if (out==null) {
+            return;
+        }
+        if (s==null) {
+            s = "";
+        } else if (s.length()>MAX_STRING) {
+            s = s.substring(0, MAX_STRING);
+        }
+        try {
+            out.writeUTF(s);
+        } catch (IOException x) {
+            out = null;
+        }
+    }
+
+    private void writeBoolean(boolean b) {
+        if (out==null) {
+            return;
+        }
+        try {
+            out.writeBoolean(b);
+        } catch (IOException x) {
+            out = null;
+        }
+    }
+
+    private void writeByte(int b) {
+        if (out==null) {
+            return;
+        }
+        try {
+            out.writeByte(b);
+        } catch (IOException x) {
+            out = null;
+        }
+    }
+
+    private void writeInt(int i) {
+        if (out==null) {
+            return;
+        }
+        try {
+            out.writeInt(i);
+        } catch (IOException x) {
+            out = null;
+        }
+    }
+
+    private void flush() {
+        if (out==null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException x) {
+            out = null;
+        }
+    }
+}
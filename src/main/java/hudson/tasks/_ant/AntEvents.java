@@ -0,0 +1,273 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.util.ArgumentListBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.slaves.WorkspaceList;
+import jenkins.util.Timer;
+
+/**
+ * Structured events reported by {@link AntEventListener} from inside the Ant process.
+ *
+ * <p>
+ * The event file starts with a magic number and a version byte, followed by events that each consist of
+ * a type byte and a timestamp, then the fields listed in the corresponding {@link Handler} method.
+ * Ant flushes the file as targets start and finish, so {@link Tail} can follow it while the build runs.
+ *
+ * @since TODO
+ */
+public final class AntEvents {
+    private static final Logger LOGGER = Logger.getLogger(AntEvents.class.getName());
+
+    /**
+     * How often a running build reads the new events of Ant.
+     */
+    public static final long POLL_MILLIS = Long.getLong(AntEvents.class.getName()+".pollMillis", 1000);
+
+    private static byte[] listenerJar;
+
+    private AntEvents() {}
+
+    /**
+     * Adds the options that make Ant report its events, and returns the file they will be written to.
+     *
+     * @param workspace the workspace of the build, next to which the listener jar and event file are kept
+     * @param args the Ant command line, so far only holding the executable
+     * @param env the environment of the Ant process
+     * @return the event file, or null if the listener could not be injected
+     */
+    public static FilePath inject(FilePath workspace, ArgumentListBuilder args, EnvVars env) throws IOException, InterruptedException {
+        FilePath tmp = WorkspaceList.tempDir(workspace);
+        if (tmp==null) {
+            return null;
+        }
+        tmp.mkdirs();
+        FilePath jar = tmp.child("ant-event-listener.jar");
+        jar.copyFrom(new ByteArrayInputStream(listenerJar()));
+        FilePath events = tmp.createTempFile("ant-events", ".bin");
+        args.add("-lib", jar.getRemote());
+        args.add("-listener", AntEventListener.class.getName());
+        env.put(AntEventListener.FILE_VARIABLE, events.getRemote());
+        return events;
+    }
+
+    private static synchronized byte[] listenerJar() {
+        if (listenerJar==null) {
+            listenerJar = Jars.of(AntEventListener.class);
+        }
+        return listenerJar;
+    }
+
+    /**
+     * Reads events until the end of the stream. A truncated last event, as left by a killed Ant, is ignored.
+     */
+    public static void read(InputStream in, Handler handler) throws IOException {
+        Parser parser = new Parser(handler);
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf))>=0) {
+            parser.feed(buf, 0, n);
+        }
+    }
+
+    /**
+     * Hands complete events to the handler as the bytes of the event file come in, in pieces of any size.
+     */
+    static final class Parser {
+        private final Handler handler;
+        private byte[] pending = new byte[8192];
+        private int length;
+        private boolean header;
+
+        Parser(Handler handler) {
+            this.handler = handler;
+        }
+
+        void feed(byte[] b, int off, int len) throws IOException {
+            if (length+len>pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length*2, length+len));
+            }
+            System.arraycopy(b, off, pending, length, len);
+            length += len;
+
+            ByteArrayInputStream bin = new ByteArrayInputStream(pending, 0, length);
+            DataInputStream din = new DataInputStream(bin);
+            int consumed = 0;
+            try {
+                if (!header) {
+                    if (din.readInt()!=AntEventListener.MAGIC || din.readByte()!=AntEventListener.VERSION) {
+                        throw new IOException("Not an Ant event file");
+                    }
+                    header = true;
+                    consumed = length - bin.available();
+                }
+                // an event is only handled once all its fields are in
+                while (bin.available()>0) {
+                    next(din);
+                    consumed = length - bin.available();
+                }
+            } catch (EOFException x) {
+                // the rest of the event is yet to come, or the Ant process went away in the middle of it
+            }
+            System.arraycopy(pending, consumed, pending, 0, length - consumed);
+            length -= consumed;
+        }
+
+        private void next(DataInputStream din) throws IOException {
+            int type = din.readUnsignedByte();
+            long time = din.readLong();
+            switch (type) {
+            case AntEventListener.BUILD_STARTED:
+                handler.buildStarted(time);
+                break;
+            case AntEventListener.TARGET_STARTED:
+                handler.targetStarted(time, din.readUTF());
+                break;
+            case AntEventListener.TARGET_FINISHED:
+                handler.targetFinished(time, din.readUTF(), din.readBoolean());
+                break;
+            case AntEventListener.TASK_STARTED:
+                handler.taskStarted(time, din.readUTF());
+                break;
+            case AntEventListener.TASK_FINISHED:
+                handler.taskFinished(time, din.readUTF(), din.readBoolean());
+                break;
+            case AntEventListener.MESSAGE_LOGGED:
+                handler.messageLogged(time, din.readByte());
+                break;
+            case AntEventListener.BUILD_FINISHED:
+                if (din.readBoolean()) {
+                    handler.buildFinished(time, din.readUTF(), din.readUTF(), din.readInt());
+                } else {
+                    handler.buildFinished(time, null, null, 0);
+                }
+                break;
+            default:
+                throw new IOException("Unknown Ant event type " + type);
+            }
+        }
+    }
+
+    /**
+     * Follows the event file on the agent while Ant writes it, so that events are handled while the build runs
+     * rather than once Ant has exited.
+     */
+    public static final class Tail {
+        private final FilePath file;
+        private final Parser parser;
+        private long offset;
+        private Future<?> future;
+
+        public Tail(FilePath file, Handler handler) {
+            this.file = file;
+            this.parser = new Parser(handler);
+        }
+
+        public FilePath getFile() {
+            return file;
+        }
+
+        /**
+         * Starts reading new events every {@link #POLL_MILLIS} milliseconds.
+         */
+        public Tail start() {
+            future = Timer.get().scheduleWithFixedDelay(() -> {
+                try {
+                    poll();
+                } catch (IOException | InterruptedException x) {
+                    // read again on the next poll, or by stop
+                    LOGGER.log(Level.FINE, "Failed to read Ant events from " + file, x);
+                }
+            }, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+            return this;
+        }
+
+        /**
+         * Handles the events written since the last call.
+         */
+        public synchronized void poll() throws IOException, InterruptedException {
+            try (InputStream in = file.readFromOffset(offset)) {
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = in.read(buf))>=0) {
+                    parser.feed(buf, 0, n);
+                    offset += n;
+                }
+            }
+        }
+
+        /**
+         * Stops following the file, handles the events still in it, and deletes it; to be called once Ant has exited.
+         */
+        public void stop() throws IOException, InterruptedException {
+            if (future!=null) {
+                future.cancel(false);
+            }
+            try {
+                poll();
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Receives events from {@link #read}. Times are in milliseconds since the epoch, as seen by the Ant process.
+     */
+    public abstract static class Handler {
+        public void buildStarted(long time) {}
+
+        public void targetStarted(long time, String name) {}
+
+        public void targetFinished(long time, String name, boolean failed) {}
+
+        public void taskStarted(long time, String name) {}
+
+        public void taskFinished(long time, String name, boolean failed) {}
+
+        /**
+         * @param priority one of the {@code MSG_*} constants of Ant's {@code Project}
+         */
+        public void messageLogged(long time, int priority) {}
+
+        /**
+         * @param error the message of the exception that failed the build, or null if it succeeded
+         * @param file the build file where it failed, or empty if unknown
+         * @param line the line in that file, or 0 if unknown
+         */
+        public void buildFinished(long time, String error, String file, int line) {}
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.remoting.Callable;
+import hudson.remoting.VirtualChannel;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers where the Ant executable of an installation was found on each node, so that a build step does not need a
+ * remoting round trip just to check that {@code bin/ant} is still there.
+ *
+ * <p>
+ * Only executables that were found are remembered, so an installation that appears later is picked up right away.
+ * Entries expire after {@link #TTL} milliseconds, and are dropped when Ant installations are reconfigured and when
+ * the Ant installer runs on a node. They are kept per channel, so an agent that reconnects starts afresh without
+ * affecting the entries of other nodes.
+ *
+ * @since TODO
+ */
+public final class AntExecutableCache {
+    /**
+     * How long an executable stays cached, in milliseconds; 0 disables the cache.
+     */
+    public static final long TTL = Long.getLong(AntExecutableCache.class.getName()+".ttl", TimeUnit.MINUTES.toMillis(1));
+
+    private static final AntExecutableCache INSTANCE = new AntExecutableCache(TTL);
+
+    public static AntExecutableCache get() {
+        return INSTANCE;
+    }
+
+    private final long ttl;
+
+    /** Channel of the node to installation home to executable; a reconnected node gets a new channel. */
+    private final Map<VirtualChannel, Map<String, Entry>> cache = new WeakHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    AntExecutableCache(long ttl) {
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+    }
+
+    private static final class Entry {
+        final String executable;
+        final long expires;
+
+        Entry(String executable, long expires) {
+            this.executable = executable;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Gets the executable for the given installation home, running {@code lookup} on the channel if it is not cached.
+     *
+     * @param home the home of the installation, as translated for the node
+     * @param lookup finds the executable on the node, returning null if there is none
+     */
+    public String resolve(VirtualChannel channel, String home, Callable<String, IOException> lookup) throws IOException, InterruptedException {
+        String executable = getIfPresent(channel, home);
+        if (executable==null) {
+            executable = channel.call(lookup);
+            put(channel, home, executable);
+        }
+        return executable;
+    }
+
+    /**
+     * Gets the cached executable for the given installation home, or null if the caller has to look it up on the node.
+     */
+    public String getIfPresent(VirtualChannel channel, String home) {
+        if (ttl>0) {
+            synchronized (cache) {
+                Map<String, Entry> homes = cache.get(channel);
+                Entry e = homes==null ? null : homes.get(home);
+                if (e!=null && System.nanoTime()-e.expires<0) {
+                    hits.incrementAndGet();
+                    return e.executable;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Remembers the executable looked up on the node after {@link #getIfPresent} returned null.
+     *
+     * @param executable the executable, or null if there is none, which is not cached
+     */
+    public void put(VirtualChannel channel, String home, String executable) {
+        if (ttl>0 && executable!=null) {
+            synchronized (cache) {
+                cache.computeIfAbsent(channel, k -> new HashMap<>()).put(home, new Entry(executable, System.nanoTime()+ttl));
+            }
+        }
+    }
+
+    /**
+     * Forgets the executables of one node.
+     */
+    public void invalidate(VirtualChannel channel) {
+        synchronized (cache) {
+            cache.remove(channel);
+        }
+    }
+
+    /**
+     * Forgets all executables.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Number of lookups answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups that went to the node.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.tools.ant.DirectoryScanner;
+
+/**
+ * Hashes what an Ant invocation depends on, so that a later build can tell whether it would do the same work again.
+ *
+ * <p>
+ * The fingerprint covers a description of the invocation given by the caller, the versions of Ant and Java,
+ * the build file, and every file matching the input patterns, by path and content.
+ * Files are hashed on the agent, several at a time.
+ *
+ * @since TODO
+ */
+public final class AntFingerprint {
+    /** How many files are hashed at once on the agent. */
+    private static final int THREADS = Integer.getInteger(AntFingerprint.class.getName()+".threads",
+            Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private AntFingerprint() {}
+
+    /**
+     * Computes the fingerprint of an Ant invocation.
+     *
+     * @param workspace what the input patterns are relative to
+     * @param inputs comma or space separated Ant patterns of the files the invocation reads
+     * @param buildFile the build file
+     * @param invocation everything else that decides what Ant does, such as the targets and properties
+     * @param antHome the Ant installation on the node, or null if unknown
+     * @param javaHome the JDK that runs Ant on the node, or null if unknown
+     * @return the hex encoded SHA-256 fingerprint
+     */
+    public static String compute(FilePath workspace, String inputs, FilePath buildFile, String invocation,
+                                 String antHome, String javaHome) throws IOException, InterruptedException {
+        return workspace.act(new Compute(inputs, buildFile.getRemote(), invocation, antHome, javaHome));
+    }
+
+    /**
+     * Finds the output patterns that match nothing in the workspace.
+     *
+     * @param outputs comma or space separated Ant patterns, or null
+     */
+    public static List<String> missing(FilePath workspace, String outputs) throws IOException, InterruptedException {
+        if (outputs == null) {
+            return new ArrayList<>();
+        }
+        return workspace.act(new Missing(outputs));
+    }
+
+    static List<String> patterns(String patterns) {
+        List<String> r = new ArrayList<>();
+        for (String p : patterns.split("[,\\s]+")) {
+            if (!p.isEmpty()) {
+                r.add(p);
+            }
+        }
+        return r;
+    }
+
+    static final class Compute extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final String inputs;
+        private final String buildFile;
+        private final String invocation;
+        private final String antHome;
+        private final String javaHome;
+
+        Compute(String inputs, String buildFile, String invocation, String antHome, String javaHome) {
+            this.inputs = inputs;
+            this.buildFile = buildFile;
+            this.invocation = invocation;
+            this.antHome = antHome;
+            this.javaHome = javaHome;
+        }
+
+        @Override
+        public String invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            List<String> patterns = patterns(inputs);
+            String[] files = patterns.isEmpty() ? new String[0] : scan(dir, String.join(",", patterns)).getIncludedFiles();
+            // the order of the scan depends on the file system
+            Arrays.sort(files);
+            List<File> all = new ArrayList<>();
+            all.add(new File(buildFile));
+            for (String f : files) {
+                all.add(new File(dir, f));
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(THREADS, all.size())));
+            try {
+                List<Future<byte[]>> digests = new ArrayList<>();
+                for (File f : all) {
+                    digests.add(executor.submit(() -> digest(f)));
+                }
+                MessageDigest md = sha256();
+                update(md, invocation);
+                // versions rather than locations, which differ between nodes
+                update(md, antVersion(antHome));
+                update(md, javaVersion(javaHome));
+                update(md, relative(dir, new File(buildFile)));
+                md.update(digests.get(0).get());
+                for (int i = 0; i<files.length; i++) {
+                    // relative, so that the fingerprint does not change with the workspace location
+                    update(md, files[i].replace(File.separatorChar, '/'));
+                    md.update(digests.get(i+1).get());
+                }
+                return Util.toHexString(md.digest());
+            } catch (ExecutionException x) {
+                throw new IOException(x.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Reads the version of Ant from its jar, as Ant itself does; empty if unknown.
+         */
+        static String antVersion(String home) {
+            if (home == null) {
+                return "";
+            }
+            File jar = new File(home, "lib/ant.jar");
+            if (!jar.isFile()) {
+                return "";
+            }
+            try (ZipFile zip = new ZipFile(jar)) {
+                ZipEntry e = zip.getEntry("org/apache/tools/ant/version.txt");
+                if (e == null) {
+                    return "";
+                }
+                Properties props = new Properties();
+                try (InputStream in = zip.getInputStream(e)) {
+                    props.load(in);
+                }
+                return props.getProperty("VERSION", "");
+            } catch (IOException x) {
+                return "";
+            }
+        }
+
+        /**
+         * Reads the version of Java from the {@code release} file of the JDK; empty if unknown.
+         */
+        static String javaVersion(String home) {
+            if (home == null) {
+                return "";
+            }
+            File release = new File(home, "release");
+            if (!release.isFile()) {
+                return "";
+            }
+            Properties props = new Properties();
+            try (InputStream in = Files.newInputStream(release.toPath())) {
+                props.load(in);
+            } catch (IOException x) {
+                return "";
+            }
+            return props.getProperty("JAVA_VERSION", "").replace("\"", "");
+        }
+
+        private static String relative(File dir, File f) {
+            String path;
+            try {
+                path = dir.toPath().relativize(f.toPath()).toString();
+            } catch (IllegalArgumentException x) { // on another drive
+                path = f.getPath();
+            }
+            return path.replace(File.separatorChar, '/');
+        }
+
+        private static byte[] digest(File f) throws IOException {
+            MessageDigest md = sha256();
+            byte[] buf = new byte[65536];
+            try (InputStream in = Files.newInputStream(f.toPath())) {
+                int n;
+                while ((n = in.read(buf))>=0) {
+                    md.update(buf, 0, n);
+                }
+            }
+            return md.digest();
+        }
+
+        private static void update(MessageDigest md, String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            // length first, so that the boundaries between strings are part of the hash
+            md.update(new byte[] {(byte) (b.length>>>24), (byte) (b.length>>>16), (byte) (b.length>>>8), (byte) b.length});
+            md.update(b);
+        }
+    }
+
+    static final class Missing extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String outputs;
+
+        Missing(String outputs) {
+            this.outputs = outputs;
+        }
+
+        @Override
+        public List<String> invoke(File dir, VirtualChannel channel) throws IOException {
+            List<String> missing = new ArrayList<>();
+            for (String p : patterns(outputs)) {
+                DirectoryScanner ds = scan(dir, p);
+                if (ds.getIncludedFilesCount()==0 && ds.getIncludedDirsCount()==0) {
+                    missing.add(p);
+                }
+            }
+            return missing;
+        }
+    }
+
+    private static DirectoryScanner scan(File dir, String includes) {
+        return Util.createFileSet(dir, includes).getDirectoryScanner();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException x) {
+            throw new AssertionError(x);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.util.ArgumentListBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import jenkins.slaves.WorkspaceList;
+
+/**
+ * Picks the heap size and garbage collector of the Ant JVM from the peak live heap of earlier builds,
+ * as reported by {@link AntHeapListener}, and the available memory of the agent.
+ *
+ * <p>
+ * The heap gets {@link #HEADROOM} percent more than the highest recent peak, but no more than 80% of the available memory.
+ * Small heaps use the serial collector, which has the least overhead for them. Options already in {@code ANT_OPTS}
+ * that set the heap size, initial or maximum, or the collector are left alone, and none are added for them.
+ *
+ * @since TODO
+ */
+public final class AntHeap {
+    /**
+     * How many earlier builds the peak heap is taken from.
+     */
+    public static final int HISTORY = Integer.getInteger(AntHeap.class.getName()+".history", 5);
+
+    /**
+     * How much more heap than the peak to give, in percent.
+     */
+    public static final int HEADROOM = Integer.getInteger(AntHeap.class.getName()+".headroom", 50);
+
+    private static final long MB = 1024 * 1024;
+    private static final long MIN_HEAP = 64 * MB;
+    /** Largest heap for which the serial collector is used. */
+    private static final long SERIAL_GC_MAX = 512 * MB;
+
+    /** Options that set the heap size; an initial size counts, as the JVM does not start with a smaller maximum. */
+    private static final Pattern HEAP_OPTION = Pattern.compile("(^|\\s)-(Xmx|Xms|XX:MaxHeapSize=|XX:InitialHeapSize=|XX:MinHeapSize=|XX:MaxRAM)");
+    private static final Pattern GC_OPTION = Pattern.compile("(^|\\s)-XX:\\+Use\\w+GC(\\s|$)");
+
+    private static byte[] listenerJar;
+
+    private AntHeap() {}
+
+    /**
+     * Adds the options that make Ant report its peak heap, and returns the file it will be written to.
+     *
+     * @return the file, or null if the listener could not be injected
+     * @see AntEvents#inject
+     */
+    public static FilePath inject(FilePath workspace, ArgumentListBuilder args, EnvVars env) throws IOException, InterruptedException {
+        FilePath tmp = WorkspaceList.tempDir(workspace);
+        if (tmp==null) {
+            return null;
+        }
+        tmp.mkdirs();
+        FilePath jar = tmp.child("ant-heap-listener.jar");
+        jar.copyFrom(new ByteArrayInputStream(listenerJar()));
+        FilePath file = tmp.createTempFile("ant-heap", ".txt");
+        args.add("-lib", jar.getRemote());
+        args.add("-listener", AntHeapListener.class.getName());
+        env.put(AntHeapListener.FILE_VARIABLE, file.getRemote());
+        return file;
+    }
+
+    private static synchronized byte[] listenerJar() {
+        if (listenerJar==null) {
+            listenerJar = Jars.of(AntHeapListener.class);
+        }
+        return listenerJar;
+    }
+
+    /**
+     * Reads the peak heap reported by the listener, and deletes the file.
+     *
+     * @return the peak in bytes, or -1 if Ant did not get to report it
+     */
+    public static long read(FilePath file) throws IOException, InterruptedException {
+        try {
+            String text = file.readToString().trim();
+            return text.isEmpty() ? -1 : Long.parseLong(text);
+        } catch (NumberFormatException x) {
+            return -1;
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Picks the options to add to {@code ANT_OPTS}.
+     *
+     * @param peaks peak heaps of earlier builds, in bytes
+     * @param availableMemory available physical memory of the agent in bytes, or a negative number if unknown
+     * @param antOpts the options set by the user, which take precedence
+     * @see #availableMemory()
+     */
+    public static Sizing size(List<Long> peaks, long availableMemory, String antOpts) {
+        if (HEAP_OPTION.matcher(antOpts).find()) {
+            return new Sizing(Collections.emptyList(), Messages.AntHeap_UserSet());
+        }
+        if (peaks.isEmpty()) {
+            return new Sizing(Collections.emptyList(), Messages.AntHeap_NoHistory());
+        }
+        long peak = Collections.max(peaks);
+        long heap = roundUp(Math.max(MIN_HEAP, peak + peak / 100 * HEADROOM));
+        long limit = availableMemory * 4 / 5;
+        boolean limited = availableMemory > 0 && heap > limit;
+        if (limited) {
+            heap = Math.max(MIN_HEAP, limit / MB * MB);
+        }
+        List<String> options = new ArrayList<>();
+        options.add("-Xmx" + heap / MB + "m");
+        if (heap <= SERIAL_GC_MAX && !GC_OPTION.matcher(antOpts).find()) {
+            options.add("-XX:+UseSerialGC");
+        }
+        String opts = String.join(" ", options);
+        String peakSize = Functions.humanReadableByteSize(peak);
+        return new Sizing(options, limited
+                ? Messages.AntHeap_Limited(opts, peakSize, peaks.size(), Functions.humanReadableByteSize(availableMemory))
+                : Messages.AntHeap_Sized(opts, peakSize, peaks.size()));
+    }
+
+    /**
+     * Gets the physical memory that a new process could use on this machine without swapping, in bytes, or -1 if unknown.
+     * On Linux, this is {@code MemAvailable}, which unlike free memory counts the page cache that the kernel gives up
+     * when needed; in a container with a memory limit, it is no more than what is left of the limit.
+     */
+    public static long availableMemory() {
+        long free = -1;
+        long total = -1;
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            free = ((com.sun.management.OperatingSystemMXBean) os).getFreeMemorySize();
+            total = ((com.sun.management.OperatingSystemMXBean) os).getTotalMemorySize();
+        }
+        return availableMemory(Paths.get("/proc/meminfo"), free, total);
+    }
+
+    /**
+     * @param free free memory as the JVM reports it, which in a container is what is left of its limit
+     * @param total total memory as the JVM reports it, which in a container is its limit
+     */
+    static long availableMemory(Path meminfo, long free, long total) {
+        long memTotal = -1;
+        long memAvailable = -1;
+        try {
+            for (String line : Files.readAllLines(meminfo, StandardCharsets.US_ASCII)) {
+                // such as "MemAvailable:   12345678 kB"
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens.length>=2 && tokens[0].equals("MemTotal:")) {
+                    memTotal = Long.parseLong(tokens[1]) * 1024;
+                } else if (tokens.length>=2 && tokens[0].equals("MemAvailable:")) {
+                    memAvailable = Long.parseLong(tokens[1]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException x) {
+            // not Linux
+            return free;
+        }
+        if (memAvailable<0) {
+            return free;
+        }
+        if (free>=0 && total>0 && total<memTotal) {
+            return Math.min(memAvailable, free);
+        }
+        return memAvailable;
+    }
+
+    private static long roundUp(long bytes) {
+        return (bytes + MIN_HEAP - 1) / MIN_HEAP * MIN_HEAP;
+    }
+
+    /**
+     * What {@link #size} picked.
+     */
+    public static final class Sizing {
+        private final List<String> options;
+        private final String description;
+
+        Sizing(List<String> options, String description) {
+            this.options = options;
+            this.description = description;
+        }
+
+        /**
+         * Options to put in front of those of the user.
+         */
+        public List<String> getOptions() {
+            return options;
+        }
+
+        /**
+         * Tells what was picked and why, for the build log.
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the peak heap of the Ant invocations of a build, for {@link AntHeap} to size the heap of later builds.
+ *
+ * @since TODO
+ */
+public class AntHeapAction implements Action {
+    private final List<Sample> samples = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    public List<Sample> getSamples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    public void add(Sample sample) {
+        samples.add(sample);
+    }
+
+    /**
+     * Gets the action of a build, adding it if needed; only called with something to record.
+     */
+    public static AntHeapAction of(Run<?,?> build) {
+        return AntActions.of(build, AntHeapAction.class, AntHeapAction::new);
+    }
+
+    /**
+     * Collects the peak heaps recorded for the same targets by up to {@link AntHeap#HISTORY} builds before the given one.
+     */
+    public static List<Long> history(Run<?,?> build, String targets) {
+        List<Long> peaks = new ArrayList<>();
+        Run<?,?> b = build.getPreviousBuild();
+        for (int i = 0; i < AntHeap.HISTORY && b != null; i++, b = b.getPreviousBuild()) {
+            AntHeapAction a = b.getAction(AntHeapAction.class);
+            if (a == null) {
+                continue;
+            }
+            for (Sample s : a.samples) {
+                if (s.getTargets().equals(targets)) {
+                    peaks.add(s.getPeak());
+                }
+            }
+        }
+        return peaks;
+    }
+
+    /**
+     * One Ant invocation.
+     */
+    public static final class Sample {
+        private final String targets;
+        private final long peak;
+
+        public Sample(String targets, long peak) {
+            this.targets = targets;
+            this.peak = peak;
+        }
+
+        public String getTargets() {
+            return targets;
+        }
+
+        /**
+         * Peak heap in bytes.
+         */
+        public long getPeak() {
+            return peak;
+        }
+    }
+}
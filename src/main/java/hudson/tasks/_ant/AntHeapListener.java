@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildListener;
+
+/**
+ * Ant {@link BuildListener} injected into the Ant process with {@code -lib}/{@code -listener}
+ * that writes the peak live heap of the JVM to the file named by {@value #FILE_VARIABLE} when the build finishes.
+ * Runs inside Ant, so it must only depend on Ant and the JDK; see {@link AntHeap}.
+ *
+ * @since TODO
+ */
+public class AntHeapListener implements BuildListener {
+    /** Environment variable holding the path of the file. */
+    public static final String FILE_VARIABLE = "JENKINS_ANT_HEAP_FILE";
+
+    private final String file;
+    private long peak;
+
+    public AntHeapListener() {
+        this(System.getenv(FILE_VARIABLE));
+    }
+
+    AntHeapListener(String file) {
+        this.file = file;
+    }
+
+    @Override
+    public void buildFinished(BuildEvent event) {
+        if (file==null) {
+            return;
+        }
+        try {
+            sample();
+            Files.write(Paths.get(file), Long.toString(peak).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException x) {
+            // nothing we can do from within Ant
+        }
+    }
+
+    private void sample() {
+        peak = Math.max(peak, liveHeap());
+    }
+
+    /**
+     * Estimates how much of the heap is live: what the fullest heap pool held after its last collection.
+     * Peak usage would count garbage that was never collected, and only grows. Before any collection,
+     * the heap in use is the best bound there is.
+     */
+    static long liveHeap() {
+        long live = 0;
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType()==MemoryType.HEAP) {
+                MemoryUsage collected = pool.getCollectionUsage();
+                if (collected!=null) {
+                    live = Math.max(live, collected.getUsed());
+                }
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return live>0 ? live : used;
+    }
+
+    @Override
+    public void buildStarted(BuildEvent event) {}
+
+    @Override
+    public void targetStarted(BuildEvent event) {}
+
+    @Override
+    public void targetFinished(BuildEvent event) {
+        // what a target kept live may be collected before the build finishes
+        if (file!=null) {
+            sample();
+        }
+    }
+
+    @Override
+    public void taskStarted(BuildEvent event) {}
+
+    @Override
+    public void taskFinished(BuildEvent event) {}
+
+    @Override
+    public void messageLogged(BuildEvent event) {}
+}
@@ -0,0 +1,270 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.ProxyConfiguration;
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Keeps the archives downloaded by {@link hudson.tasks.Ant.AntInstaller} on the controller, so that each is downloaded
+ * from upstream once and then streamed to the agents over their channel.
+ *
+ * <p>
+ * Archives are stored by their SHA-512, and checked against the {@code .sha512} file that Apache publishes next to them
+ * when there is one. A separate index maps download URLs to archives. When the archives take more than {@link #MAX_SIZE}
+ * bytes, the least recently used ones are deleted.
+ *
+ * @since TODO
+ */
+public final class AntInstallerCache {
+    private static final Logger LOGGER = Logger.getLogger(AntInstallerCache.class.getName());
+
+    /**
+     * Whether {@link hudson.tasks.Ant.AntInstaller} goes through this cache; off by default, since the controller
+     * then needs access to the download site rather than the agents.
+     */
+    @SuppressFBWarnings(value="MS_SHOULD_BE_FINAL", justification="Tunable from the script console")
+    public static boolean ENABLED = Boolean.getBoolean(AntInstallerCache.class.getName()+".enabled");
+
+    /**
+     * How many bytes of archives to keep.
+     */
+    public static final long MAX_SIZE = Long.getLong(AntInstallerCache.class.getName()+".maxSize", 1024L*1024*1024);
+
+    private static final String INDEX = "index.properties";
+
+    private static AntInstallerCache instance;
+
+    public static synchronized AntInstallerCache get() {
+        if (instance==null) {
+            instance = new AntInstallerCache(new File(Jenkins.get().getRootDir(), "caches/ant-installers"), MAX_SIZE);
+        }
+        return instance;
+    }
+
+    private final File dir;
+    private final long maxSize;
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    AntInstallerCache(File dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Opens the archive downloaded from the given URL, downloading it first unless it is in the cache.
+     *
+     * <p>
+     * Once open, the archive can be read even if a download for another URL evicts it meanwhile.
+     */
+    public InputStream open(URL url, TaskListener log) throws IOException {
+        for (int attempt = 0;; attempt++) {
+            File archive = fetch(url, log);
+            try {
+                return new FileInputStream(archive);
+            } catch (FileNotFoundException x) {
+                // evicted between the lookup and here, so it is a miss after all
+                if (attempt>=2) {
+                    throw x;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the archive downloaded from the given URL, downloading it first unless it is in the cache.
+     * A download for another URL may evict it at any time, so use {@link #open} to read it.
+     *
+     * @return the archive, to be read but not modified
+     */
+    File fetch(URL url, TaskListener log) throws IOException {
+        String key = url.toExternalForm();
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            File cached = lookup(key);
+            if (cached!=null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            log.getLogger().println("Downloading " + url + " to the controller");
+            return download(url, key);
+        }
+    }
+
+    /**
+     * Number of archives downloaded from upstream.
+     */
+    public long getDownloads() {
+        return downloads.get();
+    }
+
+    /**
+     * Number of archives served from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    private synchronized File lookup(String key) throws IOException {
+        String hash = loadIndex().getProperty(key);
+        if (hash==null) {
+            return null;
+        }
+        File archive = new File(dir, hash);
+        if (!archive.isFile()) {
+            return null;
+        }
+        // for the least recently used eviction
+        archive.setLastModified(System.currentTimeMillis());
+        return archive;
+    }
+
+    private File download(URL url, String key) throws IOException {
+        Files.createDirectories(dir.toPath());
+        File tmp = File.createTempFile("download", ".tmp", dir);
+        try {
+            MessageDigest md = sha512();
+            try (InputStream in = new DigestInputStream(ProxyConfiguration.open(url).getInputStream(), md);
+                 OutputStream out = new FileOutputStream(tmp)) {
+                in.transferTo(out);
+            }
+            String hash = Util.toHexString(md.digest());
+            String expected = expectedHash(url);
+            if (expected!=null && !expected.equals(hash)) {
+                throw new IOException("Checksum mismatch for " + url + ": expected SHA-512 " + expected + " but got " + hash);
+            }
+            downloads.incrementAndGet();
+            synchronized (this) {
+                File archive = new File(dir, hash);
+                Files.move(tmp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Properties index = loadIndex();
+                index.setProperty(key, hash);
+                evict(index, archive);
+                saveIndex(index);
+                return archive;
+            }
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Reads the SHA-512 published next to the archive, or returns null if there is none.
+     */
+    private static String expectedHash(URL url) throws IOException {
+        URL checksum = new URL(url.toExternalForm() + ".sha512");
+        String text;
+        try (InputStream in = ProxyConfiguration.open(checksum).getInputStream()) {
+            text = new String(in.readAllBytes(), StandardCharsets.US_ASCII).trim();
+        } catch (FileNotFoundException x) {
+            LOGGER.log(Level.FINE, "No checksum published for " + url, x);
+            return null;
+        }
+        // either the bare digest or "digest  file name"
+        String[] tokens = text.split("\\s+");
+        return tokens.length==0 || tokens[0].isEmpty() ? null : tokens[0].toLowerCase(Locale.ENGLISH);
+    }
+
+    private static MessageDigest sha512() {
+        try {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException x) {
+            throw new AssertionError(x);
+        }
+    }
+
+    /**
+     * Deletes the least recently used archives, but the one just added, until the rest fit in {@link #maxSize}.
+     */
+    private void evict(Properties index, File keep) {
+        File[] archives = dir.listFiles((d, name) -> name.matches("[0-9a-f]{128}"));
+        if (archives==null) {
+            return;
+        }
+        long total = 0;
+        for (File a : archives) {
+            total += a.length();
+        }
+        Arrays.sort(archives, Comparator.comparingLong(File::lastModified));
+        for (File a : archives) {
+            if (total<=maxSize) {
+                break;
+            }
+            if (a.equals(keep)) {
+                continue;
+            }
+            long size = a.length();
+            if (a.delete()) {
+                total -= size;
+                index.values().removeIf(a.getName()::equals);
+            }
+        }
+    }
+
+    private Properties loadIndex() throws IOException {
+        Properties index = new Properties();
+        File f = new File(dir, INDEX);
+        if (f.isFile()) {
+            try (InputStream in = new FileInputStream(f)) {
+                index.load(in);
+            }
+        }
+        return index;
+    }
+
+    private void saveIndex(Properties index) throws IOException {
+        File tmp = new File(dir, INDEX + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            index.store(out, null);
+        }
+        Files.move(tmp.toPath(), new File(dir, INDEX).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
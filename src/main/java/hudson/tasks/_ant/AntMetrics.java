@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jenkins.model.Jenkins;
+import jenkins.util.JenkinsJVM;
+
+/**
+ * Counters and timers of what the plugin does, passed on to every {@link Registry}.
+ *
+ * <p>
+ * Names and labels follow the Prometheus conventions, so that {@link InMemoryRegistry} can serve them as they are.
+ * Measurements made outside the controller JVM, such as by an {@link AntConsoleAnnotator} running on an agent, are dropped.
+ *
+ * @since TODO
+ */
+public final class AntMetrics {
+    private AntMetrics() {}
+
+    /**
+     * Adds to a counter.
+     *
+     * @param labels label names and values, alternating
+     */
+    public static void count(String name, long delta, String... labels) {
+        if (delta == 0) {
+            return;
+        }
+        for (Registry r : registries()) {
+            r.count(name, labels(labels), delta);
+        }
+    }
+
+    /**
+     * Records the time since the given {@link System#nanoTime()}.
+     *
+     * @param labels label names and values, alternating
+     */
+    public static void time(String name, long startNanos, String... labels) {
+        long nanos = System.nanoTime() - startNanos;
+        for (Registry r : registries()) {
+            r.time(name, labels(labels), nanos);
+        }
+    }
+
+    private static List<Registry> registries() {
+        if (!JenkinsJVM.isJenkinsJVM() || Jenkins.getInstanceOrNull() == null) {
+            return Collections.emptyList();
+        }
+        return ExtensionList.lookup(Registry.class);
+    }
+
+    private static Map<String, String> labels(String... labels) {
+        if (labels.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> r = new TreeMap<>();
+        for (int i = 0; i+1 < labels.length; i += 2) {
+            r.put(labels[i], labels[i+1] == null ? "" : labels[i+1]);
+        }
+        return r;
+    }
+
+    /**
+     * Receives the measurements of the plugin, for instance to pass them on to a monitoring system.
+     * Called from build threads, so implementations have to be thread safe and quick.
+     */
+    public interface Registry extends ExtensionPoint {
+        /**
+         * Adds to a counter.
+         */
+        void count(String name, Map<String, String> labels, long delta);
+
+        /**
+         * Records one duration of a timer.
+         */
+        void time(String name, Map<String, String> labels, long nanos);
+    }
+
+    /**
+     * Keeps the measurements in memory since startup, for {@link AntMetricsAction}.
+     */
+    @Extension
+    public static final class InMemoryRegistry implements Registry {
+        /** Series, with their labels, to value. */
+        private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+        /** Series, with their labels, to how many times were recorded and their total. */
+        private final ConcurrentMap<String, LongAdder[]> timers = new ConcurrentHashMap<>();
+
+        @Override
+        public void count(String name, Map<String, String> labels, long delta) {
+            counters.computeIfAbsent(series(name, labels), k -> new LongAdder()).add(delta);
+        }
+
+        @Override
+        public void time(String name, Map<String, String> labels, long nanos) {
+            LongAdder[] t = timers.computeIfAbsent(series(name, labels), k -> new LongAdder[] {new LongAdder(), new LongAdder()});
+            t[0].increment();
+            t[1].add(nanos);
+        }
+
+        /**
+         * Gets the value of a counter, or 0 if it was never added to.
+         */
+        public long get(String name, String... labels) {
+            LongAdder a = counters.get(series(name, labels(labels)));
+            return a == null ? 0 : a.sum();
+        }
+
+        /**
+         * Writes all series in the Prometheus text format, counters as they are and timers as summaries in seconds,
+         * each family after its {@code # TYPE} line.
+         */
+        public void writeTo(PrintWriter w) {
+            String family = null;
+            for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+                String name = name(e.getKey());
+                if (!name.equals(family)) {
+                    family = name;
+                    w.println("# TYPE " + name + " counter");
+                }
+                w.println(e.getKey() + " " + e.getValue().sum());
+            }
+            for (Map.Entry<String, LongAdder[]> e : new TreeMap<>(timers).entrySet()) {
+                String series = e.getKey();
+                String name = name(series);
+                String labels = series.substring(name.length());
+                if (!name.equals(family)) {
+                    family = name;
+                    w.println("# TYPE " + name + " summary");
+                }
+                w.println(name + "_count" + labels + " " + e.getValue()[0].sum());
+                w.println(name + "_sum" + labels + " " + seconds(e.getValue()[1].sum()));
+            }
+        }
+
+        private static String name(String series) {
+            int brace = series.indexOf('{');
+            return brace < 0 ? series : series.substring(0, brace);
+        }
+
+        private static String seconds(long nanos) {
+            return String.format(Locale.ROOT, "%.6f", (double) nanos / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        static String series(String name, Map<String, String> labels) {
+            if (labels.isEmpty()) {
+                return name;
+            }
+            StringBuilder b = new StringBuilder(name).append('{');
+            for (Map.Entry<String, String> l : labels.entrySet()) {
+                if (b.charAt(b.length()-1) != '{') {
+                    b.append(',');
+                }
+                b.append(l.getKey()).append("=\"")
+                        .append(l.getValue().replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+            }
+            return b.append('}').toString();
+        }
+    }
+}
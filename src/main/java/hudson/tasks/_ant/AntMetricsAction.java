@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.RootAction;
+import java.io.IOException;
+import java.io.PrintWriter;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+/**
+ * Serves the {@link AntMetrics} kept by {@link AntMetrics.InMemoryRegistry}, and the counters of the caches,
+ * as plain text in the Prometheus format at {@code /ant-metrics/}.
+ *
+ * @since TODO
+ */
+@Extension
+public class AntMetricsAction implements RootAction {
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ant-metrics";
+    }
+
+    public void doIndex(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("text/plain;version=0.0.4;charset=UTF-8");
+        try (PrintWriter w = rsp.getWriter()) {
+            ExtensionList.lookupSingleton(AntMetrics.InMemoryRegistry.class).writeTo(w);
+            counter(w, "ant_executable_cache_hits_total", AntExecutableCache.get().getHits());
+            counter(w, "ant_executable_cache_misses_total", AntExecutableCache.get().getMisses());
+            counter(w, "ant_installer_cache_hits_total", AntInstallerCache.get().getHits());
+            counter(w, "ant_installer_cache_downloads_total", AntInstallerCache.get().getDownloads());
+            counter(w, "ant_output_cache_hits_total", AntOutputCache.getHits());
+            counter(w, "ant_output_cache_misses_total", AntOutputCache.getMisses());
+            counter(w, "ant_output_cache_restored_bytes_total", AntOutputCache.getBytesRestored());
+            counter(w, "ant_output_cache_stored_bytes_total", AntOutputCache.getBytesStored());
+        }
+    }
+
+    private static void counter(PrintWriter w, String name, long value) {
+        w.println("# TYPE " + name + " counter");
+        w.println(name + " " + value);
+    }
+}
@@ -36,14 +36,33 @@ import org.jenkinsci.Symbol;
  * @author Kohsuke Kawaguchi
  */
 public class AntOutcomeNote extends ConsoleNote {
+    /** As computed before there were fields, so that notes in existing build logs can still be read. */
+    private static final long serialVersionUID = -8491526746165834132L;
+
+    /** Whether the build succeeded, or null if not known when the note was written, as in older build logs. */
+    private final Boolean success;
+
     public AntOutcomeNote() {
+        this.success = null;
+    }
+
+    /**
+     * @since TODO
+     */
+    public AntOutcomeNote(boolean success) {
+        this.success = success;
     }
 
     @Override
     public ConsoleAnnotator annotate(Object context, MarkupText text, int charPos) {
-        if (text.getText().contains("FAIL"))
+        if (success!=null) {
+            text.addMarkup(0,text.length(),success ? "<span class=ant-outcome-success>" : "<span class=ant-outcome-failure>","</span>");
+            return null;
+        }
+        String line = text.getText();
+        if (line.contains("FAIL"))
             text.addMarkup(0,text.length(),"<span class=ant-outcome-failure>","</span>");
-        if (text.getText().contains("SUCCESS"))
+        if (line.contains("SUCCESS"))
             text.addMarkup(0,text.length(),"<span class=ant-outcome-success>","</span>");
         return null;
     }
@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Keeps the outputs of Ant invocations in a directory of the node they ran on, by their {@link AntFingerprint},
+ * so that an invocation with the same fingerprint can restore them instead of running Ant, in any job.
+ *
+ * <p>
+ * Each entry is a gzipped tar of the files matching the output patterns, relative to the workspace.
+ * The directory is {@code caches/ant-outputs} in the root of the node, unless set with the {@code dir} system property,
+ * which may point to a directory shared between nodes. When the entries take more than {@link #MAX_SIZE} bytes,
+ * the least recently used ones are deleted.
+ *
+ * @since TODO
+ */
+public final class AntOutputCache {
+    /**
+     * How many bytes of entries to keep in each cache directory.
+     */
+    public static final long MAX_SIZE = Long.getLong(AntOutputCache.class.getName()+".maxSize", 5L*1024*1024*1024);
+
+    /**
+     * The cache directory on every node, or null for one in the root of each node.
+     */
+    private static final String DIR = System.getProperty(AntOutputCache.class.getName()+".dir");
+
+    private static final String SUFFIX = ".tgz";
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong bytesRestored = new AtomicLong();
+    private static final AtomicLong bytesStored = new AtomicLong();
+
+    private AntOutputCache() {}
+
+    /**
+     * Combines the fingerprint of an invocation with the outputs to keep, so that changing the outputs does not
+     * restore an entry made for others.
+     */
+    public static String key(String fingerprint, String outputs) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException x) {
+            throw new AssertionError(x);
+        }
+        md.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(String.join(",", AntFingerprint.patterns(outputs)).getBytes(StandardCharsets.UTF_8));
+        return Util.toHexString(md.digest());
+    }
+
+    /**
+     * Extracts the entry with the given key into the workspace, if the node has it.
+     *
+     * @return the size of the entry, or -1 if there is none
+     */
+    public static long restore(Node node, FilePath workspace, String key) throws IOException, InterruptedException {
+        FilePath dir = dir(node);
+        long size = dir == null ? -1 : workspace.act(new Restore(dir.getRemote(), key));
+        if (size < 0) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+            bytesRestored.addAndGet(size);
+        }
+        return size;
+    }
+
+    /**
+     * Archives the files matching the output patterns under the given key.
+     *
+     * @param outputs comma or space separated Ant patterns, relative to the workspace
+     * @return the size of the entry, or -1 if nothing matched the patterns
+     */
+    public static long store(Node node, FilePath workspace, String key, String outputs) throws IOException, InterruptedException {
+        FilePath dir = dir(node);
+        if (dir == null) {
+            return -1;
+        }
+        long size = workspace.act(new Store(dir.getRemote(), key, String.join(",", AntFingerprint.patterns(outputs)), MAX_SIZE));
+        if (size >= 0) {
+            bytesStored.addAndGet(size);
+        }
+        return size;
+    }
+
+    private static FilePath dir(Node node) {
+        if (DIR != null) {
+            VirtualChannel channel = node.getChannel();
+            return channel == null ? null : new FilePath(channel, DIR);
+        }
+        FilePath root = node.getRootPath();
+        return root == null ? null : root.child("caches/ant-outputs");
+    }
+
+    /**
+     * Number of invocations whose outputs were restored since startup.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of invocations whose outputs were not in the cache since startup.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Bytes of entries extracted since startup.
+     */
+    public static long getBytesRestored() {
+        return bytesRestored.get();
+    }
+
+    /**
+     * Bytes of entries written since startup.
+     */
+    public static long getBytesStored() {
+        return bytesStored.get();
+    }
+
+    static final class Restore extends MasterToSlaveFileCallable<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final String dir;
+        private final String key;
+
+        Restore(String dir, String key) {
+            this.dir = dir;
+            this.key = key;
+        }
+
+        @Override
+        public Long invoke(File ws, VirtualChannel channel) throws IOException, InterruptedException {
+            File entry = new File(dir, key + SUFFIX);
+            try (InputStream in = Files.newInputStream(entry.toPath())) {
+                // for the least recently used eviction
+                entry.setLastModified(System.currentTimeMillis());
+                long size = entry.length();
+                new FilePath(ws).untarFrom(in, FilePath.TarCompression.GZIP);
+                return size;
+            } catch (NoSuchFileException x) {
+                return -1L;
+            }
+        }
+    }
+
+    static final class Store extends MasterToSlaveFileCallable<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final String dir;
+        private final String key;
+        private final String glob;
+        private final long maxSize;
+
+        Store(String dir, String key, String glob, long maxSize) {
+            this.dir = dir;
+            this.key = key;
+            this.glob = glob;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public Long invoke(File ws, VirtualChannel channel) throws IOException, InterruptedException {
+            File d = new File(dir);
+            Files.createDirectories(d.toPath());
+            // written aside and moved in place, so that other builds never see a partial entry
+            File tmp = File.createTempFile("store", ".tmp", d);
+            try {
+                int count;
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp.toPath()))) {
+                    count = new FilePath(ws).tar(out, glob);
+                }
+                if (count == 0) {
+                    return -1L;
+                }
+                File entry = new File(d, key + SUFFIX);
+                Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                evict(d, entry, maxSize);
+                return entry.length();
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries, but the one just added, until the rest fit in the given size.
+     */
+    static void evict(File dir, File keep, long maxSize) {
+        File[] entries = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (entries == null) {
+            return;
+        }
+        long total = 0;
+        for (File e : entries) {
+            total += e.length();
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File e : entries) {
+            if (total <= maxSize) {
+                break;
+            }
+            if (e.equals(keep)) {
+                continue;
+            }
+            long size = e.length();
+            if (e.delete()) {
+                total -= size;
+            }
+        }
+    }
+}
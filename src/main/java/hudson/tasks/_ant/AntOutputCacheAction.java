@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Action;
+import hudson.model.Run;
+
+/**
+ * Counts how the Ant invocations of a build used the {@link AntOutputCache}.
+ *
+ * @since TODO
+ */
+public class AntOutputCacheAction implements Action {
+    private int hits;
+    private int misses;
+    private long bytesRestored;
+    private long bytesStored;
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    public synchronized void hit(long bytes) {
+        hits++;
+        bytesRestored += bytes;
+    }
+
+    public synchronized void miss() {
+        misses++;
+    }
+
+    public synchronized void stored(long bytes) {
+        bytesStored += bytes;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Percentage of the invocations whose outputs were restored.
+     */
+    public synchronized int getHitRate() {
+        return hits + misses == 0 ? 0 : hits * 100 / (hits + misses);
+    }
+
+    /**
+     * Bytes of outputs restored rather than built.
+     */
+    public synchronized long getBytesRestored() {
+        return bytesRestored;
+    }
+
+    public synchronized long getBytesStored() {
+        return bytesStored;
+    }
+
+    /**
+     * Gets the action of a build, adding it if needed; only called with something to record.
+     */
+    public static AntOutputCacheAction of(Run<?,?> build) {
+        return AntActions.of(build, AntOutputCacheAction.class, AntOutputCacheAction::new);
+    }
+}
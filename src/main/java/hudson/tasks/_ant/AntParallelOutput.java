@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.console.LineTransformationOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Interleaves the output of Ant processes running at the same time into one build log.
+ * Each process writes into its own lane, which runs the output through an {@link AntConsoleAnnotator} of its own
+ * and passes it on a whole line at a time, prefixed with the label of the lane.
+ *
+ * @since TODO
+ */
+public final class AntParallelOutput {
+    private final OutputStream out;
+    /** Notified of the targets and outcomes of all lanes, with line numbers counted in the interleaved output; or null. */
+    private final AntConsoleAnnotator.Listener listener;
+    /** Lines written so far; guarded by this. */
+    private int lines;
+
+    /**
+     * @param listener notified of the targets and outcomes of all lanes, such as {@link AntTargetIndex.Writer};
+     *                 calls are serialized with the writes to {@code out}
+     */
+    public AntParallelOutput(OutputStream out, AntConsoleAnnotator.Listener listener) {
+        this.out = out;
+        this.listener = listener;
+    }
+
+    /**
+     * Creates the stream for one Ant process.
+     *
+     * @param own notified of the targets and outcomes of this process only, with line numbers counted in its own output; or null
+     */
+    public AntConsoleAnnotator lane(String label, Charset charset, AntConsoleAnnotator.Listener own) {
+        Lane lane = new Lane(label, charset);
+        return new AntConsoleAnnotator(lane, charset, AntConsoleAnnotator.Listener.all(own, lane));
+    }
+
+    AntConsoleAnnotator lane(String label, Charset charset, byte[][] antNotes, AntConsoleAnnotator.Listener own) {
+        Lane lane = new Lane(label, charset);
+        return new AntConsoleAnnotator(lane, charset, antNotes, AntConsoleAnnotator.Listener.all(own, lane));
+    }
+
+    /**
+     * Writes a line of its own under the given label.
+     */
+    public void println(String label, String message, Charset charset) throws IOException {
+        byte[] line = ("[" + label + "] " + message + "\n").getBytes(charset);
+        synchronized (this) {
+            out.write(line);
+            lines++;
+        }
+        out.flush();
+    }
+
+    /**
+     * Buffers the output of one process until a line is complete, and remembers what the annotator found in it
+     * until then, so that {@link #listener} learns about it together with the position where the line actually ends up.
+     */
+    private final class Lane extends LineTransformationOutputStream implements AntConsoleAnnotator.Listener {
+        private final byte[] label;
+        private String target;
+        private Boolean outcome;
+
+        Lane(String label, Charset charset) {
+            this.label = ("[" + label + "] ").getBytes(charset);
+        }
+
+        @Override
+        public void targetStarted(String name, int line) {
+            target = name;
+        }
+
+        @Override
+        public void outcome(boolean success, int line) {
+            outcome = success;
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            synchronized (AntParallelOutput.this) {
+                if (listener != null) {
+                    if (target != null)
+                        listener.targetStarted(target, lines);
+                    if (outcome != null)
+                        listener.outcome(outcome, lines);
+                }
+                out.write(label);
+                out.write(b, 0, len);
+                // a last line without a newline must not run into the next line of another lane
+                if (len == 0 || b[len - 1] != '\n')
+                    out.write('\n');
+                lines++;
+            }
+            target = null;
+            outcome = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Action;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each phase of the Ant steps of a build took, from resolving the installation to running Ant,
+ * to tell where the time before Ant starts goes.
+ *
+ * @since TODO
+ */
+public class AntPhaseAction implements Action {
+    /**
+     * Whether the phases are also printed to the build log as they end.
+     */
+    @SuppressFBWarnings(value="MS_SHOULD_BE_FINAL", justification="Tunable from the script console")
+    public static boolean LOG = Boolean.getBoolean(AntPhaseAction.class.getName()+".log");
+
+    private final List<Invocation> invocations = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    public List<Invocation> getInvocations() {
+        return Collections.unmodifiableList(invocations);
+    }
+
+    /**
+     * Starts timing the phases of a step, adding the action to the build if needed.
+     *
+     * @param step names the step, such as its targets
+     * @param listener where to print the phases when {@link #LOG} is set
+     */
+    public static Tracer trace(Run<?,?> build, String step, TaskListener listener) {
+        AntPhaseAction a = AntActions.of(build, AntPhaseAction.class, AntPhaseAction::new);
+        Invocation invocation = new Invocation(step);
+        a.invocations.add(invocation);
+        return new Tracer(invocation, LOG ? listener : null);
+    }
+
+    /**
+     * The phases of one step.
+     */
+    public static final class Invocation {
+        private final String step;
+        private final List<Span> spans = new CopyOnWriteArrayList<>();
+
+        Invocation(String step) {
+            this.step = step;
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        public List<Span> getSpans() {
+            return Collections.unmodifiableList(spans);
+        }
+
+        /**
+         * Total of the phases, in milliseconds.
+         */
+        public String getTotal() {
+            long nanos = 0;
+            for (Span s : spans) {
+                nanos += s.nanos;
+            }
+            return millis(nanos);
+        }
+    }
+
+    /**
+     * One phase.
+     */
+    public static final class Span {
+        private final String phase;
+        private final long nanos;
+
+        Span(String phase, long nanos) {
+            this.phase = phase;
+            this.nanos = nanos;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Duration in milliseconds, for display.
+         */
+        public String getMillis() {
+            return millis(nanos);
+        }
+    }
+
+    /**
+     * Ends one phase when the next one starts, so that the phases of a step cover all of its time.
+     */
+    public static final class Tracer {
+        private final Invocation invocation;
+        private final TaskListener listener;
+        private long start = System.nanoTime();
+
+        Tracer(Invocation invocation, TaskListener listener) {
+            this.invocation = invocation;
+            this.listener = listener;
+        }
+
+        /**
+         * Ends the current phase, starting the next one.
+         *
+         * @param phase names the phase that ends
+         */
+        public void end(String phase) {
+            long now = System.nanoTime();
+            Span span = new Span(phase, now - start);
+            invocation.spans.add(span);
+            start = now;
+            if (listener != null) {
+                listener.getLogger().println(Messages.AntPhaseAction_Span(invocation.step, phase, span.getMillis()));
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", (double) nanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
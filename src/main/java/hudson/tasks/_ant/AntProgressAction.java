@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.Util;
+import hudson.model.Run;
+import java.util.List;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Shows how far a running build has got through its Ant targets, comparing the targets started so far
+ * with the {@link AntTargetEstimates} of its job.
+ *
+ * <p>
+ * The estimate is updated as each target starts: the targets expected after it, by their position in the last
+ * successful build, plus what is left of the expected duration of the running one.
+ *
+ * @since TODO
+ */
+@ExportedBean
+public class AntProgressAction implements RunAction2, AntConsoleAnnotator.Listener {
+    private transient Run<?,?> run;
+
+    // all guarded by this, and only kept while the build runs
+    private transient AntTargetEstimates estimates;
+    /** For each position in the expected sequence, the expected duration of the targets from there on, and a last 0. */
+    private transient long[] remaining;
+    /** Position in the expected sequence of the last target seen that is in it, or -1. */
+    private transient int position = -1;
+    private transient String current;
+    private transient long currentStart;
+    private transient long start;
+
+    @Override
+    public void onAttached(Run<?,?> r) {
+        run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?,?> r) {
+        run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    /**
+     * Gets the action of a build, adding it with the estimates of the job if needed.
+     *
+     * @return the action, or null if the job has no estimates yet, so that there would be nothing to show
+     */
+    public static AntProgressAction of(Run<?,?> build) {
+        AntProgressAction a = build.getAction(AntProgressAction.class);
+        if (a != null) {
+            return a;
+        }
+        AntTargetEstimates estimates = AntTargetEstimates.of(build.getParent());
+        if (estimates.isEmpty()) {
+            return null;
+        }
+        return AntActions.of(build, AntProgressAction.class, () -> {
+            AntProgressAction created = new AntProgressAction();
+            created.expect(estimates);
+            return created;
+        });
+    }
+
+    void expect(AntTargetEstimates estimates) {
+        expect(estimates, System.currentTimeMillis());
+    }
+
+    synchronized void expect(AntTargetEstimates estimates, long now) {
+        this.estimates = estimates;
+        List<String> sequence = estimates.getSequence();
+        remaining = new long[sequence.size() + 1];
+        for (int i = sequence.size() - 1; i >= 0; i--) {
+            remaining[i] = remaining[i + 1] + Math.max(0, estimates.getDuration(sequence.get(i)));
+        }
+        start = now;
+    }
+
+    @Override
+    public void targetStarted(String name, int line) {
+        started(name, System.currentTimeMillis());
+    }
+
+    synchronized void started(String name, long now) {
+        current = name;
+        currentStart = now;
+        if (estimates == null) {
+            return;
+        }
+        // the next time it runs in the expected sequence; targets not in it leave the position as it is
+        List<String> sequence = estimates.getSequence();
+        for (int i = position + 1; i < sequence.size(); i++) {
+            if (sequence.get(i).equals(name)) {
+                position = i;
+                break;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void outcome(boolean success, int line) {
+        current = null;
+    }
+
+    /**
+     * Whether the build is running with an estimate to show.
+     */
+    public boolean isRunning() {
+        return getRemainingTime() >= 0;
+    }
+
+    /**
+     * Gets the target running now, or null between Ant invocations.
+     */
+    @Exported
+    public synchronized String getCurrentTarget() {
+        return run != null && run.isBuilding() ? current : null;
+    }
+
+    /**
+     * Gets how long the Ant targets still to run are expected to take, in milliseconds,
+     * or -1 if there is nothing to go by or the build is over.
+     */
+    @Exported
+    public long getRemainingTime() {
+        return run != null && run.isBuilding() ? remainingTime(System.currentTimeMillis()) : -1;
+    }
+
+    synchronized long remainingTime(long now) {
+        if (estimates == null || estimates.isEmpty()) {
+            return -1;
+        }
+        long r = remaining[position + 1];
+        if (current != null) {
+            long d = estimates.getDuration(current);
+            if (d > 0) {
+                r += Math.max(0, d - (now - currentStart));
+            }
+        }
+        return r;
+    }
+
+    public String getRemainingTimeString() {
+        return Util.getTimeSpanString(getRemainingTime());
+    }
+
+    /**
+     * Gets the percentage of the expected time of the Ant targets already spent, or -1 if not known.
+     * It stays below 100 as long as targets are running.
+     */
+    @Exported
+    public int getProgress() {
+        return run != null && run.isBuilding() ? progress(System.currentTimeMillis()) : -1;
+    }
+
+    synchronized int progress(long now) {
+        long r = remainingTime(now);
+        if (r < 0) {
+            return -1;
+        }
+        long elapsed = now - start;
+        return elapsed + r == 0 ? 0 : (int) Math.min(99, 100 * elapsed / (elapsed + r));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import hudson.tasks.Ant;
+import hudson.tasks.Ant.AntInstallation;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Installs the Ant installations marked with {@link AntInstallOnConnect} on agents in the background,
+ * as soon as they come online or the installations are reconfigured, so that the first build on a new agent
+ * does not have to wait for the download.
+ *
+ * <p>
+ * At most {@link #CONCURRENCY} installations run at the same time on the whole controller.
+ * A build that needs an installation still being installed on its node waits for it, see {@link #await}.
+ *
+ * @since TODO
+ */
+public final class AntProvisioner {
+    private static final Logger LOGGER = Logger.getLogger(AntProvisioner.class.getName());
+
+    /**
+     * How many installations may run at the same time.
+     */
+    public static final int CONCURRENCY = Integer.getInteger(AntProvisioner.class.getName()+".concurrency", 2);
+
+    private static final AntProvisioner INSTANCE = new AntProvisioner();
+
+    public static AntProvisioner get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Where an installation is on a node.
+     */
+    public enum Status {
+        /** Waiting for one of the {@link #CONCURRENCY} slots. */
+        QUEUED,
+        INSTALLING,
+        READY,
+        /** Builds will try to install it themselves, as without this feature. */
+        FAILED
+    }
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY,
+            new NamingThreadFactory(new DaemonThreadFactory(), AntProvisioner.class.getSimpleName()));
+
+    /** Node name to installation name to install. */
+    private final ConcurrentMap<String, ConcurrentMap<String, Install>> installs = new ConcurrentHashMap<>();
+
+    private AntProvisioner() {}
+
+    private final class Install implements Runnable {
+        final Node node;
+        final AntInstallation installation;
+        volatile Status status = Status.QUEUED;
+        Future<?> future;
+
+        Install(Node node, AntInstallation installation) {
+            this.node = node;
+            this.installation = installation;
+        }
+
+        @Override
+        public void run() {
+            status = Status.INSTALLING;
+            try {
+                // runs the installers of the installation, as a build would
+                installation.forNode(node, new LogTaskListener(LOGGER, Level.FINE));
+                status = Status.READY;
+            } catch (IOException | RuntimeException x) {
+                status = Status.FAILED;
+                LOGGER.log(Level.WARNING, "Failed to install Ant " + installation.getName() + " on " + node.getDisplayName(), x);
+            } catch (InterruptedException x) {
+                status = Status.FAILED;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean isEnabled(AntInstallation installation) {
+        return installation.getProperties().get(AntInstallOnConnect.class)!=null;
+    }
+
+    /**
+     * Starts installing, unless already done or in progress, the installations marked with {@link AntInstallOnConnect}
+     * on the agent of the given computer.
+     */
+    public void provision(Computer c) {
+        Node node = c.getNode();
+        if (node==null || node instanceof Jenkins || c.isOffline()) {
+            return;
+        }
+        for (AntInstallation installation : Jenkins.get().getDescriptorByType(Ant.DescriptorImpl.class).getInstallations()) {
+            if (isEnabled(installation)) {
+                provision(node, installation);
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #provision(Computer)} for every agent.
+     */
+    public void provisionAll() {
+        Jenkins j = Jenkins.getInstanceOrNull();
+        if (j==null) {
+            return;
+        }
+        for (Computer c : j.getComputers()) {
+            provision(c);
+        }
+    }
+
+    private void provision(Node node, AntInstallation installation) {
+        installs.computeIfAbsent(node.getNodeName(), k -> new ConcurrentHashMap<>()).compute(installation.getName(), (name, old) -> {
+            if (old!=null && old.status!=Status.FAILED && (old.status!=Status.READY || old.installation==installation)) {
+                // in progress, or done with the current configuration
+                return old;
+            }
+            Install install = new Install(node, installation);
+            install.future = executor.submit(install);
+            return install;
+        });
+    }
+
+    /**
+     * Waits for the given installation to be installed on the given node if that is in progress.
+     *
+     * @param installation the installation as configured, before it is translated for the node
+     */
+    public void await(Node node, AntInstallation installation, TaskListener listener) throws InterruptedException {
+        Map<String, Install> onNode = installs.get(node.getNodeName());
+        Install install = onNode==null ? null : onNode.get(installation.getName());
+        if (install==null || install.future.isDone()) {
+            return;
+        }
+        listener.getLogger().println(Messages.AntProvisioner_Waiting(installation.getName(), node.getDisplayName()));
+        try {
+            install.future.get();
+        } catch (ExecutionException | CancellationException x) {
+            // the build installs it itself
+        }
+    }
+
+    /**
+     * Gets the status of each installation provisioned on the given node, by installation name.
+     */
+    public Map<String, Status> getStatus(Node node) {
+        Map<String, Install> onNode = installs.get(node.getNodeName());
+        if (onNode==null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Status> r = new TreeMap<>();
+        onNode.forEach((name, install) -> r.put(name, install.status));
+        return r;
+    }
+
+    @Extension
+    public static final class ComputerListenerImpl extends ComputerListener {
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            INSTANCE.provision(c);
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            // an agent that comes back may well have lost its tools
+            INSTANCE.installs.remove(c.getName());
+        }
+    }
+}
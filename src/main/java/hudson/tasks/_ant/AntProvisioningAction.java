@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TransientComputerActionFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Shows on the page of an agent which Ant installations {@link AntProvisioner} installed there.
+ *
+ * @since TODO
+ */
+public class AntProvisioningAction implements Action {
+    private final Computer computer;
+
+    AntProvisioningAction(Computer computer) {
+        this.computer = computer;
+    }
+
+    public Computer getComputer() {
+        return computer;
+    }
+
+    /**
+     * Gets the status of each installation provisioned on the node, by installation name.
+     */
+    public Map<String, AntProvisioner.Status> getStatus() {
+        Node node = computer.getNode();
+        return node==null ? Collections.emptyMap() : AntProvisioner.get().getStatus(node);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return getStatus().isEmpty() ? null : "symbol-build";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.AntProvisioningAction_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ant-installations";
+    }
+
+    @Extension
+    public static final class Factory extends TransientComputerActionFactory {
+        @Override
+        public Collection<? extends Action> createFor(Computer target) {
+            return Collections.singleton(new AntProvisioningAction(target));
+        }
+    }
+}
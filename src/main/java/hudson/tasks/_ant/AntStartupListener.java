@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildListener;
+
+/**
+ * Ant {@link BuildListener} injected into the Ant process with {@code -lib}/{@code -listener}
+ * that writes how many milliseconds passed from the start of the JVM to the start of the build
+ * to the file named by {@value #FILE_VARIABLE}.
+ * Runs inside Ant, so it must only depend on Ant and the JDK; see {@link AntClassDataSharing}.
+ *
+ * @since TODO
+ */
+public class AntStartupListener implements BuildListener {
+    /** Environment variable holding the path of the file. */
+    public static final String FILE_VARIABLE = "JENKINS_ANT_STARTUP_FILE";
+
+    private final String file;
+
+    public AntStartupListener() {
+        this(System.getenv(FILE_VARIABLE));
+    }
+
+    AntStartupListener(String file) {
+        this.file = file;
+    }
+
+    @Override
+    public void buildStarted(BuildEvent event) {
+        if (file==null) {
+            return;
+        }
+        long startup = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        try {
+            Files.write(Paths.get(file), Long.toString(startup).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException x) {
+            // nothing we can do from within Ant
+        }
+    }
+
+    @Override
+    public void buildFinished(BuildEvent event) {}
+
+    @Override
+    public void targetStarted(BuildEvent event) {}
+
+    @Override
+    public void targetFinished(BuildEvent event) {}
+
+    @Override
+    public void taskStarted(BuildEvent event) {}
+
+    @Override
+    public void taskFinished(BuildEvent event) {}
+
+    @Override
+    public void messageLogged(BuildEvent event) {}
+}
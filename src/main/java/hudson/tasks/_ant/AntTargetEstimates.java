@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Job;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the Ant targets of a job are expected to take, learned from its successful builds
+ * as recorded in its {@link AntTargetHistory}, so that running builds can be compared with them without reading old build logs.
+ *
+ * <p>
+ * They are the targets of the last successful build in the order they first ran, and for each target name
+ * an exponentially weighted moving average of its duration, folding in the successful builds in the order they completed.
+ *
+ * @since TODO
+ */
+public final class AntTargetEstimates {
+    /** Weight of the latest duration in the average. */
+    static final double WEIGHT = 0.3;
+
+    static final AntTargetEstimates EMPTY = new AntTargetEstimates(Collections.emptyList(), Collections.emptyMap());
+
+    private final List<String> sequence;
+    private final Map<String, Long> durations;
+
+    AntTargetEstimates(List<String> sequence, Map<String, Long> durations) {
+        this.sequence = sequence;
+        this.durations = durations;
+    }
+
+    /**
+     * Gets the targets of the last successful build, in the order they first ran.
+     */
+    public List<String> getSequence() {
+        return Collections.unmodifiableList(sequence);
+    }
+
+    /**
+     * Gets what the named target is expected to take, in milliseconds, or -1 if it never ran in a successful build.
+     */
+    public long getDuration(String name) {
+        Long d = durations.get(name);
+        return d != null ? d : -1;
+    }
+
+    public boolean isEmpty() {
+        return sequence.isEmpty();
+    }
+
+    /**
+     * Folds in a successful build.
+     *
+     * @param totals how long each target took in the build, in the order they first ran
+     */
+    AntTargetEstimates update(Map<String, Long> totals) {
+        Map<String, Long> d = new HashMap<>(durations);
+        for (Map.Entry<String, Long> e : totals.entrySet()) {
+            Long old = d.get(e.getKey());
+            d.put(e.getKey(), old == null ? e.getValue() : Math.round(WEIGHT * e.getValue() + (1 - WEIGHT) * old));
+        }
+        // forget targets the build does not have any more
+        d.keySet().retainAll(totals.keySet());
+        return new AntTargetEstimates(new ArrayList<>(totals.keySet()), d);
+    }
+
+    /**
+     * Gets the estimates of a job; empty if it has no successful build with Ant targets yet.
+     */
+    public static AntTargetEstimates of(Job<?,?> job) {
+        return AntTargetHistory.of(job).estimates();
+    }
+}
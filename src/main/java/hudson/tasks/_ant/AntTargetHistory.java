@@ -0,0 +1,482 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * How long the Ant targets of every build of a job took, kept in two append-only files in the job directory,
+ * so that the trend of a target over thousands of builds can be read without loading any of them.
+ *
+ * <p>
+ * {@value #NAMES_FILE_NAME} holds each target name once, in the order they were first seen.
+ * {@value #FILE_NAME} holds one record of {@value #RECORD_SIZE} bytes per target and build:
+ * the build number, the index of the target name, the duration in milliseconds, and whether the build was successful.
+ * A target running more than once in a build has a single record with the total.
+ * A crash while appending leaves at most a partial record or name at the end, which is ignored and overwritten.
+ * The {@link AntTargetEstimates} of the job are derived from the same records.
+ *
+ * @since TODO
+ */
+public final class AntTargetHistory {
+    private static final Logger LOGGER = Logger.getLogger(AntTargetHistory.class.getName());
+
+    /**
+     * Name of the file with the records, in the job directory.
+     */
+    public static final String FILE_NAME = "ant-target-history";
+
+    /**
+     * Name of the file with the target names, in the job directory.
+     */
+    public static final String NAMES_FILE_NAME = "ant-target-names";
+
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4;
+    static final int RECORD_SIZE = 20;
+    private static final int SUCCESS = 1;
+
+    /**
+     * How many of the last successful builds make up the baseline a target is compared with.
+     */
+    public static final int BASELINE = Integer.getInteger(AntTargetHistory.class.getName()+".baseline", 20);
+
+    /**
+     * How many standard deviations slower than its baseline a target has to be to be flagged.
+     */
+    public static final int DEVIATIONS = Integer.getInteger(AntTargetHistory.class.getName()+".deviations", 3);
+
+    /** Fewer successful builds than this are no baseline. */
+    static final int MIN_SAMPLES = 5;
+
+    /** However steady a target has been, being slower by less than this, in milliseconds, is noise. */
+    static final long MIN_SLOWDOWN = 1000;
+
+    private final List<String> names;
+    private final int[] numbers;
+    private final int[] targets;
+    private final long[] durations;
+    private final int[] flags;
+
+    private AntTargetHistory(List<String> names, int[] numbers, int[] targets, long[] durations, int[] flags) {
+        this.names = names;
+        this.numbers = numbers;
+        this.targets = targets;
+        this.durations = durations;
+        this.flags = flags;
+    }
+
+    /**
+     * Gets the names of all targets that ever ran, in the order they were first seen.
+     */
+    public List<String> getTargetNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public boolean isEmpty() {
+        return numbers.length == 0;
+    }
+
+    /**
+     * Gets how long the named target took in each build it ran in, oldest first.
+     */
+    public List<Sample> getSamples(String name) {
+        int t = names.indexOf(name);
+        List<Sample> r = new ArrayList<>();
+        if (t < 0) {
+            return r;
+        }
+        for (int i = 0; i < numbers.length; i++) {
+            if (targets[i] == t) {
+                r.add(new Sample(numbers[i], durations[i], (flags[i] & SUCCESS) != 0));
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Finds the targets of a build that were more than {@link #DEVIATIONS} standard deviations slower
+     * than in the last {@link #BASELINE} successful builds before it.
+     */
+    List<Regression> regressions(int number, List<AntTarget> build) {
+        Map<String, Long> totals = totals(build);
+        // the baseline of each target of the build, collected in one pass from the newest record back
+        Map<Integer, List<Long>> baselines = new HashMap<>();
+        for (String name : totals.keySet()) {
+            int t = names.indexOf(name);
+            if (t >= 0) {
+                baselines.put(t, new ArrayList<>());
+            }
+        }
+        int full = 0;
+        for (int i = numbers.length - 1; i >= 0 && full < baselines.size(); i--) {
+            List<Long> b = baselines.get(targets[i]);
+            if (b != null && b.size() < BASELINE && numbers[i] < number && (flags[i] & SUCCESS) != 0) {
+                b.add(durations[i]);
+                if (b.size() == BASELINE) {
+                    full++;
+                }
+            }
+        }
+        List<Regression> r = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> e : baselines.entrySet()) {
+            List<Long> b = e.getValue();
+            if (b.size() < MIN_SAMPLES) {
+                continue;
+            }
+            double mean = 0;
+            for (long d : b) {
+                mean += d;
+            }
+            mean /= b.size();
+            double variance = 0;
+            for (long d : b) {
+                variance += (d - mean) * (d - mean);
+            }
+            double deviation = Math.sqrt(variance / b.size());
+            String name = names.get(e.getKey());
+            long duration = totals.get(name);
+            if (duration > mean + DEVIATIONS * deviation && duration - mean >= MIN_SLOWDOWN) {
+                r.add(new Regression(name, duration, Math.round(mean), Math.round(deviation), b.size()));
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Derives the estimates from the successful builds, in the order they were recorded.
+     */
+    AntTargetEstimates estimates() {
+        AntTargetEstimates e = AntTargetEstimates.EMPTY;
+        // the records of a build are appended together, in the order its targets first ran
+        for (int i = 0, j; i < numbers.length; i = j) {
+            Map<String, Long> totals = new LinkedHashMap<>();
+            for (j = i; j < numbers.length && numbers[j] == numbers[i]; j++) {
+                totals.put(names.get(targets[j]), durations[j]);
+            }
+            if ((flags[i] & SUCCESS) != 0) {
+                e = e.update(totals);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Adds up how long each target took in a build, in the order they first ran.
+     */
+    static Map<String, Long> totals(List<AntTarget> build) {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (AntTarget t : build) {
+            totals.merge(t.getName(), t.getDuration(), Long::sum);
+        }
+        return totals;
+    }
+
+    /**
+     * Reads the history of a job; empty if there is none yet or the files cannot be read.
+     */
+    public static AntTargetHistory of(Job<?,?> job) {
+        try {
+            return read(job.getRootDir());
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "Cannot read the Ant target history of " + job, x);
+            return new AntTargetHistory(Collections.emptyList(), new int[0], new int[0], new long[0], new int[0]);
+        }
+    }
+
+    static AntTargetHistory read(File dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        File n = new File(dir, NAMES_FILE_NAME);
+        if (n.isFile()) {
+            readNames(ByteBuffer.wrap(Files.readAllBytes(n.toPath())), names);
+        }
+        File f = new File(dir, FILE_NAME);
+        ByteBuffer b = ByteBuffer.wrap(f.isFile() ? Files.readAllBytes(f.toPath()) : new byte[0]);
+        int count = 0;
+        if (b.remaining() >= HEADER_SIZE) {
+            if (b.getInt() != VERSION) {
+                throw new IOException("Unknown format of " + f);
+            }
+            count = b.remaining() / RECORD_SIZE;
+        }
+        int[] numbers = new int[count];
+        int[] targets = new int[count];
+        long[] durations = new long[count];
+        int[] flags = new int[count];
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            numbers[j] = b.getInt();
+            targets[j] = b.getInt();
+            durations[j] = b.getLong();
+            flags[j] = b.getInt();
+            // the name may have been lost in a crash
+            if (targets[j] >= 0 && targets[j] < names.size()) {
+                j++;
+            }
+        }
+        if (j < count) {
+            numbers = Arrays.copyOf(numbers, j);
+            targets = Arrays.copyOf(targets, j);
+            durations = Arrays.copyOf(durations, j);
+            flags = Arrays.copyOf(flags, j);
+        }
+        return new AntTargetHistory(names, numbers, targets, durations, flags);
+    }
+
+    /**
+     * Reads the names up to the end of the last complete one.
+     *
+     * @return where the names end
+     */
+    private static int readNames(ByteBuffer b, List<String> names) throws IOException {
+        if (!b.hasRemaining()) {
+            return 0;
+        }
+        if (b.get() != VERSION) {
+            throw new IOException("Unknown format of the Ant target names");
+        }
+        while (b.remaining() >= 2) {
+            int length = 2 + (b.getShort(b.position()) & 0xFFFF);
+            if (b.remaining() < length) {
+                break;
+            }
+            names.add(new DataInputStream(new ByteArrayInputStream(b.array(), b.position(), length)).readUTF());
+            b.position(b.position() + length);
+        }
+        return b.position();
+    }
+
+    /**
+     * Appends the targets of a build, adding the names not seen before.
+     */
+    static void append(File dir, int number, boolean success, List<AntTarget> build) throws IOException {
+        Map<String, Long> totals = totals(build);
+        if (totals.isEmpty()) {
+            return;
+        }
+        File n = new File(dir, NAMES_FILE_NAME);
+        List<String> names = new ArrayList<>();
+        int end = n.isFile() ? readNames(ByteBuffer.wrap(Files.readAllBytes(n.toPath())), names) : 0;
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            indices.putIfAbsent(names.get(i), i);
+        }
+        ByteArrayOutputStream added = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(added);
+        if (end == 0) {
+            out.writeByte(VERSION);
+        }
+        int next = names.size();
+        for (String name : totals.keySet()) {
+            if (!indices.containsKey(name)) {
+                indices.put(name, next++);
+                out.writeUTF(name);
+            }
+        }
+        if (added.size() > 0) {
+            appendAt(n, end, ByteBuffer.wrap(added.toByteArray()));
+        }
+
+        File f = new File(dir, FILE_NAME);
+        long size = f.length();
+        ByteBuffer records = ByteBuffer.allocate(HEADER_SIZE + totals.size() * RECORD_SIZE);
+        if (size < HEADER_SIZE) {
+            records.putInt(VERSION);
+            size = 0;
+        } else {
+            size = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        }
+        for (Map.Entry<String, Long> e : totals.entrySet()) {
+            records.putInt(number);
+            records.putInt(indices.get(e.getKey()));
+            records.putLong(e.getValue());
+            records.putInt(success ? SUCCESS : 0);
+        }
+        records.flip();
+        appendAt(f, size, records);
+    }
+
+    /**
+     * Writes at the given position, cutting off whatever a crash may have left after it.
+     */
+    private static void appendAt(File f, long position, ByteBuffer b) throws IOException {
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ch.truncate(position);
+            ch.position(position);
+            while (b.hasRemaining()) {
+                ch.write(b);
+            }
+        }
+    }
+
+    /**
+     * How long a target took in one build.
+     */
+    public static final class Sample {
+        private final int number;
+        private final long duration;
+        private final boolean success;
+
+        Sample(int number, long duration, boolean success) {
+            this.number = number;
+            this.duration = duration;
+            this.success = success;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(duration);
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+    }
+
+    /**
+     * A target that was much slower than its baseline.
+     */
+    public static final class Regression {
+        private final String target;
+        private final long duration;
+        private final long mean;
+        private final long deviation;
+        private final int builds;
+
+        Regression(String target, long duration, long mean, long deviation, int builds) {
+            this.target = target;
+            this.duration = duration;
+            this.mean = mean;
+            this.deviation = deviation;
+            this.builds = builds;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Gets the average duration of the target in the builds of the baseline.
+         */
+        public long getMean() {
+            return mean;
+        }
+
+        /**
+         * Gets the standard deviation of the duration of the target in the builds of the baseline.
+         */
+        public long getDeviation() {
+            return deviation;
+        }
+
+        /**
+         * Gets how many builds make up the baseline.
+         */
+        public int getBuilds() {
+            return builds;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(duration);
+        }
+
+        public String getMeanString() {
+            return Util.getTimeSpanString(mean);
+        }
+
+        public String getDeviationString() {
+            return Util.getTimeSpanString(deviation);
+        }
+    }
+
+    /**
+     * Appends the targets of each build with Ant targets, flagging those much slower than usual.
+     */
+    @Extension
+    public static final class Recorder extends RunListener<Run<?,?>> {
+        @Override
+        public void onCompleted(Run<?,?> run, TaskListener listener) {
+            AntBuildAction action = run.getAction(AntBuildAction.class);
+            if (action == null || action.getTargets().isEmpty()) {
+                return;
+            }
+            List<AntTarget> targets = action.getTargets();
+            File dir = run.getParent().getRootDir();
+            List<Regression> regressions;
+            // builds of the same job may complete at the same time
+            synchronized (Recorder.class) {
+                try {
+                    regressions = read(dir).regressions(run.getNumber(), targets);
+                    append(dir, run.getNumber(), run.getResult() == Result.SUCCESS, targets);
+                } catch (IOException x) {
+                    LOGGER.log(Level.WARNING, "Cannot update the Ant target history in " + dir, x);
+                    return;
+                }
+            }
+            if (!regressions.isEmpty()) {
+                for (Regression r : regressions) {
+                    listener.getLogger().println(Messages.AntTargetHistory_Regression(r.getTarget(), r.getDurationString(), r.getMeanString(), r.getDeviationString(), r.getBuilds()));
+                }
+                run.addAction(new AntRegressionAction(regressions));
+                AntMetrics.count("ant_target_regressions_total", regressions.size());
+            }
+        }
+    }
+}
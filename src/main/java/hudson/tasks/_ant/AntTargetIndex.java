@@ -0,0 +1,333 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Run;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sidecar file next to the build log that maps each Ant target to the byte offset and line number where its output
+ * starts, so that a target can be found in a huge log without reading or rendering it.
+ *
+ * <p>
+ * The file is a sequence of records, each a type byte followed by the byte offset (long) and the 1-based line number (int)
+ * of a line of the log. A target record carries the target name as well; an end record marks the outcome line of an Ant invocation.
+ * The output of a target runs from its line to the next record, so it can be read from the log without reading anything else.
+ *
+ * @since TODO
+ */
+public final class AntTargetIndex {
+    private static final Logger LOGGER = Logger.getLogger(AntTargetIndex.class.getName());
+
+    static final String FILE_NAME = "ant-targets.idx";
+
+    private static final byte TARGET = 'T';
+    private static final byte END = 'E';
+
+    private AntTargetIndex() {}
+
+    public static File of(Run<?,?> run) {
+        return new File(run.getRootDir(), FILE_NAME);
+    }
+
+    /**
+     * One target in the index.
+     */
+    public static final class Entry {
+        private final String name;
+        private final long offset;
+        private final int line;
+        private final long end;
+
+        Entry(String name, long offset, int line, long end) {
+            this.name = name;
+            this.offset = offset;
+            this.line = line;
+            this.end = end;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Byte offset in the build log of the line announcing the target.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * 1-based line number of that line.
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Byte offset in the build log where the output of the target ends: the line announcing the next target
+         * or the outcome of the Ant invocation; or -1 if the target is still running, or Ant stopped without either.
+         */
+        public long getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * Reads the targets in the order they started; empty if there is no index.
+     */
+    public static List<Entry> read(File index) throws IOException {
+        if (!index.isFile()) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = new ArrayList<>();
+        // a target is only complete once the next record is read
+        String name = null;
+        long start = 0;
+        int startLine = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+            int type;
+            while ((type = in.read())>=0) {
+                long offset = in.readLong();
+                int line = in.readInt();
+                String next = null;
+                if (type==TARGET) {
+                    next = in.readUTF();
+                } else if (type!=END) {
+                    throw new IOException("Corrupt Ant target index " + index);
+                }
+                if (name!=null) {
+                    entries.add(new Entry(name, start, startLine, offset));
+                }
+                name = next;
+                start = offset;
+                startLine = line;
+            }
+        } catch (EOFException x) {
+            // the build is still writing the last record
+        }
+        if (name!=null) {
+            entries.add(new Entry(name, start, startLine, -1));
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the output of a target, reading only its range of the log.
+     * Offsets are those of the plain log, so a log compressed since has to be read up to the range.
+     *
+     * @param log the log of the build, either {@code log} or {@code log.gz}
+     * @param end where to stop, or -1 to read to the current end of the log
+     */
+    static void writeRange(File log, long start, long end, OutputStream out) throws IOException {
+        if (log.getName().endsWith(".gz")) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(log), 65536)) {
+                in.skipNBytes(start);
+                byte[] buf = new byte[65536];
+                long remaining = end<0 ? Long.MAX_VALUE : end - start;
+                int n;
+                while (remaining>0 && (n = in.read(buf, 0, (int) Math.min(buf.length, remaining)))>0) {
+                    out.write(buf, 0, n);
+                    remaining -= n;
+                }
+            } catch (EOFException x) {
+                // the range is past the end of the log
+            }
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+            long limit = end<0 ? ch.size() : Math.min(end, ch.size());
+            ByteBuffer buf = ByteBuffer.allocate(65536);
+            long position = start;
+            while (position<limit) {
+                buf.clear().limit((int) Math.min(buf.capacity(), limit - position));
+                int n = ch.read(buf, position);
+                if (n<0) {
+                    break;
+                }
+                out.write(buf.array(), 0, n);
+                position += n;
+            }
+        }
+    }
+
+    /**
+     * Starts indexing the output of an Ant invocation about to be written to the log of the given build.
+     *
+     * @param logger the stream of the build log that the Ant output goes to
+     * @return the listener to give to {@link AntConsoleAnnotator}, or null if the build has no log file to index
+     */
+    public static Writer open(Run<?,?> run, OutputStream logger) {
+        File log = run.getLogFile();
+        if (!log.isFile()) {
+            return null;
+        }
+        try {
+            return new Writer(of(run), log, logger);
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "Failed to open Ant target index for " + run, x);
+            return null;
+        }
+    }
+
+    /**
+     * Appends targets to the index as {@link AntConsoleAnnotator} finds them.
+     * The offset is taken from the log file itself, so it stays right whatever else decorates the log.
+     */
+    public static final class Writer implements AntConsoleAnnotator.Listener, Closeable {
+        private final File log;
+        private final OutputStream logger;
+        /** Lines in the log before the Ant output. */
+        private final int baseLine;
+        private DataOutputStream out;
+
+        Writer(File index, File log, OutputStream logger) throws IOException {
+            this.log = log;
+            this.logger = logger;
+            logger.flush();
+            long length = log.length();
+            // an earlier Ant step of the build recorded where one of its lines is, so only what came since needs counting
+            long[] last = lastRecord(index);
+            if (last!=null && last[0]<=length) {
+                this.baseLine = (int) last[1] - 1 + countLines(log, last[0], length);
+            } else {
+                this.baseLine = countLines(log, 0, length);
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(index, true)));
+        }
+
+        /**
+         * Offset and line of the last complete record in the index, or null if there is none.
+         */
+        private static long[] lastRecord(File index) throws IOException {
+            if (!index.isFile()) {
+                return null;
+            }
+            long[] last = null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+                int type;
+                while ((type = in.read())>=0) {
+                    long offset = in.readLong();
+                    int line = in.readInt();
+                    if (type==TARGET) {
+                        in.readUTF();
+                    } else if (type!=END) {
+                        return null;
+                    }
+                    last = new long[] {offset, line};
+                }
+            } catch (EOFException x) {
+                // a partial record left by a step that was killed; the complete ones are still right
+            }
+            return last;
+        }
+
+        private static int countLines(File log, long from, long to) throws IOException {
+            int lines = 0;
+            try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buf = ByteBuffer.allocate(65536);
+                long position = from;
+                while (position<to) {
+                    buf.clear().limit((int) Math.min(buf.capacity(), to - position));
+                    int n = ch.read(buf, position);
+                    if (n<0) {
+                        break;
+                    }
+                    byte[] a = buf.array();
+                    for (int i = 0; i<n; i++) {
+                        if (a[i]=='\n') {
+                            lines++;
+                        }
+                    }
+                    position += n;
+                }
+            }
+            return lines;
+        }
+
+        @Override
+        public void targetStarted(String name, int line) {
+            write(TARGET, name, line);
+        }
+
+        @Override
+        public void outcome(boolean success, int line) {
+            write(END, null, line);
+        }
+
+        private void write(byte type, String name, int line) {
+            if (out==null) {
+                return;
+            }
+            try {
+                // everything before this line has to be in the file for its length to be the offset of the line;
+                // the logger is the local stream of the build log, so this only writes out what Ant printed since the last target
+                logger.flush();
+                out.writeByte(type);
+                out.writeLong(log.length());
+                out.writeInt(baseLine + line + 1);
+                if (name!=null) {
+                    out.writeUTF(name);
+                }
+                // so that the outline of a running build is up to date
+                out.flush();
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "Failed to write Ant target index for " + log, x);
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (out!=null) {
+                try {
+                    out.close();
+                } catch (IOException x) {
+                    LOGGER.log(Level.WARNING, null, x);
+                }
+                out = null;
+            }
+        }
+    }
+}
@@ -41,7 +41,23 @@ import org.jenkinsci.Symbol;
  * @since 1.349
  */
 public final class AntTargetNote extends ConsoleNote {
+    /** As computed before there were fields, so that notes in existing build logs can still be read. */
+    private static final long serialVersionUID = 4578061440915198854L;
+
+    private static final Pattern TARGET = Pattern.compile(".*(?=:)");
+
+    /**
+     * Whether the note sits right before the target name, on a line holding nothing else but the colon after it,
+     * as notes written by {@link AntConsoleAnnotator} do; false for notes read from older build logs.
+     */
+    private final boolean nameLine;
+
     public AntTargetNote() {
+        this(true);
+    }
+
+    AntTargetNote(boolean nameLine) {
+        this.nameLine = nameLine;
     }
 
     @Override
@@ -49,7 +65,19 @@ public final class AntTargetNote extends ConsoleNote {
         // still under development. too early to put into production
         if (!ENABLED)   return null;
 
-        MarkupText.SubText t = text.findToken(Pattern.compile(".*(?=:)"));
+        if (nameLine) {
+            // the name runs from the note to the colon, before the end of the line
+            String line = text.getText();
+            int end = line.length();
+            while (end>charPos && (line.charAt(end-1)=='\n' || line.charAt(end-1)=='\r'))
+                end--;
+            if (end>charPos && line.charAt(end-1)==':') {
+                text.addMarkup(charPos,end-1,"<b class=ant-target>","</b>");
+                return null;
+            }
+        }
+
+        MarkupText.SubText t = text.findToken(TARGET);
         if (t!=null)
             t.addMarkup(0,t.length(),"<b class=ant-target>","</b>");
         return null;
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Action;
+import hudson.model.Job;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows how long each Ant target took over the builds of a job, from its {@link AntTargetHistory}.
+ *
+ * @since TODO
+ */
+public class AntTrendAction implements Action {
+    /** How many of the last builds {@link TargetTrend#getRecentSamples} lists. */
+    private static final int RECENT = 50;
+
+    private final Job<?,?> job;
+
+    public AntTrendAction(Job<?,?> job) {
+        this.job = job;
+    }
+
+    public Job<?,?> getJob() {
+        return job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return new File(job.getRootDir(), AntTargetHistory.FILE_NAME).isFile() ? "symbol-analytics" : null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.AntTrendAction_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ant-trend";
+    }
+
+    /**
+     * Gets the trend of each target that ever ran, in the order they were first seen.
+     */
+    public List<TargetTrend> getTargets() {
+        AntTargetHistory history = AntTargetHistory.of(job);
+        List<TargetTrend> r = new ArrayList<>();
+        for (String name : history.getTargetNames()) {
+            r.add(new TargetTrend(name, history.getSamples(name)));
+        }
+        return r;
+    }
+
+    /**
+     * Serves {@code target/<name>/}.
+     */
+    public TargetTrend getTarget(String name) {
+        List<AntTargetHistory.Sample> samples = AntTargetHistory.of(job).getSamples(name);
+        return samples.isEmpty() ? null : new TargetTrend(name, samples);
+    }
+
+    /**
+     * How long one target took over the builds it ran in.
+     */
+    public final class TargetTrend {
+        /** Size of the chart in SVG user units. */
+        private static final int WIDTH = 1000, HEIGHT = 200;
+
+        private final String name;
+        private final List<AntTargetHistory.Sample> samples;
+
+        private TargetTrend(String name, List<AntTargetHistory.Sample> samples) {
+            this.name = name;
+            this.samples = samples;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Job<?,?> getJob() {
+            return job;
+        }
+
+        /**
+         * Gets the samples, oldest first.
+         */
+        public List<AntTargetHistory.Sample> getSamples() {
+            return Collections.unmodifiableList(samples);
+        }
+
+        /**
+         * Gets the samples of the last builds, newest first.
+         */
+        public List<AntTargetHistory.Sample> getRecentSamples() {
+            List<AntTargetHistory.Sample> r = new ArrayList<>(samples.subList(Math.max(0, samples.size() - RECENT), samples.size()));
+            Collections.reverse(r);
+            return r;
+        }
+
+        public AntTargetHistory.Sample getLast() {
+            return samples.get(samples.size() - 1);
+        }
+
+        /**
+         * Gets the {@code points} of an SVG polyline of the durations, scaled to {@value #WIDTH} by {@value #HEIGHT}.
+         */
+        public String getChart() {
+            long max = 1;
+            for (AntTargetHistory.Sample s : samples) {
+                max = Math.max(max, s.getDuration());
+            }
+            StringBuilder b = new StringBuilder();
+            int n = samples.size();
+            for (int i = 0; i < n; i++) {
+                long x = n == 1 ? WIDTH / 2 : (long) i * WIDTH / (n - 1);
+                long y = HEIGHT - samples.get(i).getDuration() * HEIGHT / max;
+                b.append(x).append(',').append(y).append(' ');
+            }
+            return b.toString().trim();
+        }
+    }
+}
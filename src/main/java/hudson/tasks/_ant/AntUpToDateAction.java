@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the {@link AntFingerprint fingerprints} of the Ant invocations of a build that have an up-to-date check,
+ * so that the next build can skip those whose fingerprint did not change.
+ *
+ * @since TODO
+ */
+public class AntUpToDateAction implements Action {
+    private final List<Step> steps = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public void add(Step step) {
+        steps.add(step);
+    }
+
+    public boolean contains(String fingerprint) {
+        for (Step s : steps) {
+            if (s.getFingerprint().equals(fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the action of a build, adding it if needed; only called with something to record.
+     */
+    public static AntUpToDateAction of(Run<?,?> build) {
+        return AntActions.of(build, AntUpToDateAction.class, AntUpToDateAction::new);
+    }
+
+    /**
+     * Finds the build that an Ant invocation would repeat: the last successful build before the given one,
+     * if it recorded the same fingerprint.
+     *
+     * @return that build, or null if Ant has to run
+     */
+    public static Run<?,?> findUpToDate(Run<?,?> build, String fingerprint) {
+        Run<?,?> previous = build.getPreviousSuccessfulBuild();
+        if (previous == null) {
+            return null;
+        }
+        AntUpToDateAction a = previous.getAction(AntUpToDateAction.class);
+        return a != null && a.contains(fingerprint) ? previous : null;
+    }
+
+    /**
+     * One Ant invocation.
+     */
+    public static final class Step {
+        private final String targets;
+        private final String fingerprint;
+        /** Number of the build this one was up to date with, or null if Ant ran. */
+        private final Integer upToDateWith;
+
+        public Step(String targets, String fingerprint, Integer upToDateWith) {
+            this.targets = targets;
+            this.fingerprint = fingerprint;
+            this.upToDateWith = upToDateWith;
+        }
+
+        public String getTargets() {
+            return targets;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public Integer getUpToDateWith() {
+            return upToDateWith;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 Jenkins contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.tasks._ant;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Packs classes of this plugin into a small jar that can be put on the classpath of a process on an agent.
+ *
+ * <p>
+ * The classes are compiled for the Java version Jenkins runs on, which may be newer than the one running Ant,
+ * so callers check {@link #canLoad} first.
+ *
+ * @since TODO
+ */
+public final class Jars {
+    private static int requiredJava;
+
+    private Jars() {}
+
+    /**
+     * Creates a jar holding exactly the given classes, which must not refer to anything beyond the JDK and that process.
+     */
+    static byte[] of(Class<?>... classes) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (JarOutputStream jar = new JarOutputStream(buf)) {
+            for (Class<?> c : classes) {
+                String name = c.getName().replace('.', '/') + ".class";
+                try (InputStream in = c.getClassLoader().getResourceAsStream(name)) {
+                    if (in==null) {
+                        throw new IllegalStateException("Cannot find " + name);
+                    }
+                    jar.putNextEntry(new JarEntry(name));
+                    in.transferTo(jar);
+                    jar.closeEntry();
+                }
+            }
+        } catch (IOException x) { // should be impossible
+            throw new RuntimeException(x);
+        }
+        return buf.toByteArray();
+    }
+
+    /**
+     * Gets the oldest feature version of Java that can load the classes of this plugin, from the version of their class files.
+     */
+    public static synchronized int getRequiredJava() {
+        if (requiredJava==0) {
+            try (InputStream in = Jars.class.getResourceAsStream("Jars.class")) {
+                byte[] header = in.readNBytes(8);
+                // major version 52 is Java 8
+                requiredJava = ((header[6] & 0xFF) << 8 | (header[7] & 0xFF)) - 44;
+            } catch (IOException x) { // should be impossible
+                throw new RuntimeException(x);
+            }
+        }
+        return requiredJava;
+    }
+
+    /**
+     * Whether a JVM of the given version can load the classes of this plugin.
+     *
+     * @param javaVersion as returned by {@link #javaVersion}; false if empty
+     */
+    public static boolean canLoad(String javaVersion) {
+        return AntClassDataSharing.feature(javaVersion) >= getRequiredJava();
+    }
+
+    /**
+     * Finds out, on the node, the version of Java that Ant will run on: the one in {@code JAVA_HOME},
+     * or else the first {@code java} on the {@code PATH}, as the Ant launcher scripts pick it.
+     *
+     * @return the version, or an empty string if unknown
+     */
+    public static String javaVersion(String javaHome, String path) {
+        File home = javaHome != null ? new File(javaHome) : null;
+        if (home == null && path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                File java = new File(dir, File.separatorChar == '\\' ? "java.exe" : "java");
+                if (java.isFile()) {
+                    try {
+                        // usually a link from a directory such as /usr/bin
+                        home = java.toPath().toRealPath().getParent().getParent().toFile();
+                    } catch (IOException x) {
+                        return "";
+                    }
+                    break;
+                }
+            }
+        }
+        if (home == null) {
+            return "";
+        }
+        // the java of Java 8 is in the jre directory
+        if (!new File(home, "release").isFile() && home.getName().equals("jre") && home.getParentFile() != null) {
+            home = home.getParentFile();
+        }
+        return AntFingerprint.Compute.javaVersion(home.getPath());
+    }
+}
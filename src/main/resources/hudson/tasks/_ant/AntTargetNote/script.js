@@ -3,7 +3,19 @@
     var outline = null;
     var loading = false;
 
-    var queue = []; // ant targets are queued up until we load outline.
+    var queue = []; // ant targets are queued up until they are put into the outline, a batch per animation frame.
+    var scheduled = false;
+
+    // the outline only renders the rows that can be seen; these are all of them
+    var entries = [];
+    var viewport = null;
+    var spacer = null;
+    var list = null;
+    var rowHeight = 0;
+
+    var BATCH = 500;        // targets taken from the queue per frame
+    var VISIBLE_ROWS = 30;  // rows shown before the outline scrolls
+    var OVERSCAN = 10;      // rows rendered above and below the visible ones
 
     function loadOutline() {
         if (outline!=null)  return false;   // already loaded
@@ -19,7 +31,8 @@
                         document.getElementById("side-panel").insertAdjacentHTML("beforeend", responseText);
                         outline = document.getElementById("console-outline-body");
                         loading = false;
-                        queue.forEach(handle);
+                        createList();
+                        schedule();
                     });
                 }
             });
@@ -27,21 +40,88 @@
         return true;
     }
 
-    function handle(e) {
-        if (loadOutline()) {
-            queue.push(e);
-        } else {
+    function createList() {
+        viewport = document.createElement("div");
+        viewport.style.position = "relative";
+        viewport.style.overflowY = "auto";
+        spacer = document.createElement("div");
+        list = document.createElement("ul");
+        list.style.position = "absolute";
+        list.style.top = "0";
+        list.style.left = "0";
+        list.style.right = "0";
+        list.style.margin = "0";
+        viewport.appendChild(spacer);
+        viewport.appendChild(list);
+        outline.appendChild(viewport);
+        viewport.addEventListener("scroll", schedule, {passive: true});
+    }
+
+    function schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            requestAnimationFrame(update);
+        }
+    }
+
+    // takes the next batch from the queue, then renders what can be seen
+    function update() {
+        scheduled = false;
+        var batch = queue.length > BATCH ? queue.splice(0, BATCH) : queue;
+        batch.forEach(function(e) {
             var id = "ant-target-"+(iota++);
-            outline.appendChild(parseHtml("<li><a href='#"+id+"'>"+e.innerHTML+"</a></li>"))
-
-            if (document.all)
-                e.innerHTML += '<a name="' + id + '"/>';  // IE8 loses "name" attr in appendChild
-            else {
-                var a = document.createElement("a");
-                a.setAttribute("name",id);
-                e.appendChild(a);
-            }
+            entries.push({id: id, name: e.textContent});
+            var a = document.createElement("a");
+            a.setAttribute("name",id);
+            e.appendChild(a);
+        });
+        if (batch === queue) {
+            queue = [];
+        } else {
+            schedule();
         }
+        render();
+    }
+
+    function render() {
+        if (entries.length === 0)   return;
+        if (rowHeight === 0) {
+            list.appendChild(row(entries[0]));
+            rowHeight = list.firstChild.offsetHeight || 20;
+        }
+        viewport.style.height = (Math.min(entries.length, VISIBLE_ROWS) * rowHeight) + "px";
+        spacer.style.height = (entries.length * rowHeight) + "px";
+
+        var first = Math.max(0, Math.floor(viewport.scrollTop / rowHeight) - OVERSCAN);
+        var last = Math.min(entries.length, first + VISIBLE_ROWS + 2 * OVERSCAN);
+        var fragment = document.createDocumentFragment();
+        for (var i = first; i < last; i++) {
+            fragment.appendChild(row(entries[i]));
+        }
+        list.style.top = (first * rowHeight) + "px";
+        list.textContent = "";
+        list.appendChild(fragment);
+    }
+
+    function row(entry) {
+        var li = document.createElement("li");
+        li.style.whiteSpace = "nowrap";
+        li.style.overflow = "hidden";
+        li.style.textOverflow = "ellipsis";
+        if (rowHeight > 0)
+            li.style.height = rowHeight + "px";
+        var a = document.createElement("a");
+        a.setAttribute("href", "#" + entry.id);
+        a.setAttribute("title", entry.name);
+        a.textContent = entry.name;
+        li.appendChild(a);
+        return li;
+    }
+
+    function handle(e) {
+        queue.push(e);
+        if (!loadOutline())
+            schedule();
     }
 
     Behaviour.register({
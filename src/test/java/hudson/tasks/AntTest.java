@@ -27,6 +27,7 @@ import hudson.tasks._ant.AntTargetAnnotationTest;
 import org.htmlunit.html.HtmlButton;
 import org.htmlunit.html.HtmlForm;
 import org.htmlunit.html.HtmlPage;
+import hudson.ExtensionList;
 import hudson.EnvVars;
 import hudson.Functions;
 import hudson.matrix.Axis;
@@ -48,7 +49,24 @@ import hudson.model.StringParameterValue;
 import hudson.tasks.Ant.AntInstallation;
 import hudson.tasks.Ant.AntInstallation.DescriptorImpl;
 import hudson.tasks.Ant.AntInstaller;
+import hudson.tasks._ant.AntAsyncOutputStream;
+import hudson.tasks._ant.AntBuildAction;
+import hudson.tasks._ant.AntClassDataSharing;
+import hudson.tasks._ant.AntTarget;
+import hudson.tasks._ant.AntTargetIndex;
 import hudson.tasks._ant.AntTargetNote;
+import hudson.tasks._ant.AntHeap;
+import hudson.tasks._ant.AntHeapAction;
+import hudson.tasks._ant.AntMetrics;
+import hudson.tasks._ant.AntOutputCacheAction;
+import hudson.tasks._ant.AntPhaseAction;
+import hudson.tasks._ant.AntProgressAction;
+import hudson.tasks._ant.AntTargetEstimates;
+import hudson.tasks._ant.AntTargetHistory;
+import hudson.tasks._ant.AntTrendAction;
+import hudson.tasks._ant.AntUpToDateAction;
+import hudson.tasks._ant.Messages;
+import hudson.tasks._ant.Jars;
 import hudson.tools.InstallSourceProperty;
 import hudson.tools.ToolProperty;
 import hudson.tools.ToolPropertyDescriptor;
@@ -57,10 +75,14 @@ import hudson.util.DescribableList;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -189,6 +211,414 @@ class AntTest {
         r.assertLogNotContains("-Dpassword=12345", build);
     }
 
+    @Test
+    void targetTimings() throws Exception {
+        assertTargetTimings(false);
+    }
+
+    @Test
+    void targetTimingsFromEvents() throws Exception {
+        assertTargetTimings(true);
+    }
+
+    private void assertTargetTimings(boolean recordEvents) throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", AntTargetAnnotationTest.class.getResource("simple-build.xml")));
+        Ant ant = new Ant("foo", antName, null, null, null);
+        ant.setRecordEvents(recordEvents);
+        project.getBuildersList().add(ant);
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+
+        AntBuildAction action = build.getAction(AntBuildAction.class);
+        assertNotNull(action);
+        List<AntTarget> targets = action.getTargets();
+        assertEquals(2, targets.size());
+        assertEquals("bar", targets.get(0).getName());
+        assertEquals("foo", targets.get(1).getName());
+        for (AntTarget t : targets) {
+            assertTrue(t.getDuration() >= 0);
+        }
+        assertEquals(2, action.getSlowestTargets().size());
+        r.createWebClient().getPage(build, action.getUrlName());
+    }
+
+    @Test
+    void targetIndex() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", AntTargetAnnotationTest.class.getResource("simple-build.xml")));
+        project.getBuildersList().add(new Ant("foo", antName, null, null, null));
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+
+        AntBuildAction action = build.getAction(AntBuildAction.class);
+        List<AntTargetIndex.Entry> outline = action.getOutline();
+        assertEquals(2, outline.size());
+        assertEquals("bar", outline.get(0).getName());
+        assertEquals("foo", outline.get(1).getName());
+        List<String> lines = Files.readAllLines(build.getLogFile().toPath(), build.getCharset());
+        for (AntTargetIndex.Entry e : outline) {
+            assertTrue(lines.get(e.getLine() - 1).endsWith(e.getName() + ":"), lines.get(e.getLine() - 1));
+        }
+
+        WebClient wc = r.createWebClient();
+        String text = wc.goTo(build.getUrl() + "ant/target/1/consoleText", "text/plain").getWebResponse().getContentAsString();
+        assertTrue(text.startsWith("foo:"), text);
+        assertFalse(text.contains("def"), text);
+        wc.getPage(build, "ant/target/0/");
+        wc.goTo(build.getUrl() + "ant/outline", "text/html");
+
+        // the output of one target only, by name
+        text = wc.goTo(build.getUrl() + "ant/target/bar/log", "text/plain").getWebResponse().getContentAsString();
+        assertTrue(text.startsWith("bar:"), text);
+        assertTrue(text.contains("def"), text);
+        assertFalse(text.contains("foo:"), text);
+        text = wc.goTo(build.getUrl() + "ant/target/foo/log", "text/plain").getWebResponse().getContentAsString();
+        assertTrue(text.contains("abc"), text);
+        assertFalse(text.contains("BUILD SUCCESSFUL"), text);
+    }
+
+    @Test
+    void asyncOutput() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", AntTargetAnnotationTest.class.getResource("simple-build.xml")));
+        project.getBuildersList().add(new Ant("foo", antName, null, null, null));
+        AntAsyncOutputStream.ENABLED = true;
+        try {
+            FreeStyleBuild build = r.buildAndAssertSuccess(project);
+            r.assertLogContains("BUILD SUCCESSFUL", build);
+            List<AntTargetIndex.Entry> outline = build.getAction(AntBuildAction.class).getOutline();
+            assertEquals(2, outline.size());
+            byte[] log = Files.readAllBytes(build.getLogFile().toPath());
+            for (AntTargetIndex.Entry e : outline) {
+                // the line starts with the annotation
+                String line = new String(log, (int) e.getOffset(), log.length - (int) e.getOffset(), build.getCharset()).split("\r?\n")[0];
+                assertTrue(line.endsWith(e.getName() + ":"), line);
+            }
+        } finally {
+            AntAsyncOutputStream.ENABLED = false;
+        }
+    }
+
+    @Test
+    void progress() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", AntTargetAnnotationTest.class.getResource("simple-build.xml")));
+        project.getBuildersList().add(new Ant("foo", antName, null, null, null));
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        // nothing to estimate from, so no action
+        assertNull(build.getAction(AntProgressAction.class));
+        assertTrue(new File(project.getRootDir(), AntTargetHistory.FILE_NAME).isFile());
+        assertFalse(new File(project.getRootDir(), "ant-target-estimates").exists());
+        AntTargetEstimates estimates = AntTargetEstimates.of(project);
+        assertEquals(List.of("bar", "foo"), estimates.getSequence());
+        assertTrue(estimates.getDuration("foo") >= 0);
+        build = r.buildAndAssertSuccess(project);
+        // the build is over, so there is nothing left to estimate
+        assertEquals(-1, build.getAction(AntProgressAction.class).getRemainingTime());
+        assertEquals(-1, build.getAction(AntProgressAction.class).getProgress());
+        assertNull(build.getAction(AntProgressAction.class).getCurrentTarget());
+    }
+
+    @Test
+    void trend() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", AntTargetAnnotationTest.class.getResource("simple-build.xml")));
+        project.getBuildersList().add(new Ant("foo", antName, null, null, null));
+        r.buildAndAssertSuccess(project);
+        r.buildAndAssertSuccess(project);
+        AntTargetHistory history = AntTargetHistory.of(project);
+        assertEquals(List.of("bar", "foo"), history.getTargetNames());
+        assertEquals(2, history.getSamples("foo").size());
+        assertEquals(2, history.getSamples("foo").get(1).getNumber());
+
+        AntTrendAction trend = project.getAction(AntTrendAction.class);
+        assertNotNull(trend);
+        WebClient wc = r.createWebClient();
+        HtmlPage page = wc.getPage(project, "ant-trend/");
+        assertEquals(2, page.getElementById("ant-trend").getElementsByTagName("tbody").get(0).getElementsByTagName("tr").size());
+        page = wc.getPage(project, "ant-trend/target/foo/");
+        assertEquals(2, page.getElementById("ant-target-trend").getElementsByTagName("tbody").get(0).getElementsByTagName("tr").size());
+    }
+
+    @Test
+    void daemon() throws Exception {
+        assumeFalse(Functions.isWindows(), "daemons are only used on Unix");
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", AntTargetAnnotationTest.class.getResource("simple-build.xml")));
+        Ant ant = new Ant("foo", antName, null, null, null);
+        ant.setDaemon(true);
+        project.getBuildersList().add(ant);
+        Set<String> pids = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            FreeStyleBuild build = r.buildAndAssertSuccess(project);
+            Matcher m = Pattern.compile("Running Ant in daemon process (\\d+)").matcher(JenkinsRule.getLog(build));
+            assertTrue(m.find());
+            pids.add(m.group(1));
+            List<AntTarget> targets = build.getAction(AntBuildAction.class).getTargets();
+            assertEquals(2, targets.size());
+            assertEquals("foo", targets.get(1).getName());
+        }
+        // the second build reused the daemon of the first
+        assertEquals(1, pids.size());
+        r.configRoundtrip(project);
+        assertTrue(project.getBuildersList().get(Ant.class).isDaemon());
+    }
+
+    @Test
+    void daemonWithParameters() throws Exception {
+        assumeFalse(Functions.isWindows(), "daemons are only used on Unix");
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", """
+                <project default="greet">
+                  <property environment="env"/>
+                  <target name="greet">
+                    <echo>property ${env.GREETING} in ${user.dir}</echo>
+                    <exec executable="sh" failonerror="true">
+                      <arg value="-c"/>
+                      <arg value="echo child $GREETING"/>
+                    </exec>
+                  </target>
+                </project>
+                """));
+        project.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("GREETING", "hello")));
+        Ant ant = new Ant("greet", antName, null, null, null);
+        ant.setDaemon(true);
+        project.getBuildersList().add(ant);
+        Set<String> pids = new HashSet<>();
+        for (String greeting : List.of("hello", "bye")) {
+            FreeStyleBuild build = r.assertBuildStatusSuccess(project.scheduleBuild2(0, new ParametersAction(new StringParameterValue("GREETING", greeting))));
+            Matcher m = Pattern.compile("Running Ant in daemon process (\\d+)").matcher(JenkinsRule.getLog(build));
+            assertTrue(m.find());
+            pids.add(m.group(1));
+            // the build file and the processes it starts see the parameter of this build, not that of the one before
+            r.assertLogContains("property " + greeting + " in " + build.getWorkspace().getRemote(), build);
+            r.assertLogContains("child " + greeting, build);
+        }
+        assertEquals(1, pids.size());
+    }
+
+    @Test
+    void parallelTargetGroups() throws Exception {
+        assertEquals(List.of("foo", "bar baz"), Ant.targetGroups("foo\n\n  bar baz \r\n"));
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", """
+                <project>
+                  <target name="one"><sleep milliseconds="500"/><echo>first</echo></target>
+                  <target name="two"><echo>second</echo></target>
+                  <target name="three"><echo>third</echo></target>
+                  <target name="broken"><fail message="oops"/></target>
+                </project>
+                """));
+        Ant ant = new Ant("one\ntwo three", antName, null, null, null);
+        ant.setParallelism(2);
+        project.getBuildersList().add(ant);
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        r.assertLogContains("[one]      [echo] first", build);
+        r.assertLogContains("[two three]      [echo] third", build);
+        List<AntTarget> targets = build.getAction(AntBuildAction.class).getTargets();
+        assertEquals(3, targets.size());
+        List<AntTargetIndex.Entry> outline = build.getAction(AntBuildAction.class).getOutline();
+        assertEquals(3, outline.size());
+        List<String> lines = Files.readAllLines(build.getLogFile().toPath(), build.getCharset());
+        for (AntTargetIndex.Entry e : outline) {
+            assertTrue(lines.get(e.getLine() - 1).endsWith(e.getName() + ":"), lines.get(e.getLine() - 1));
+        }
+
+        ant = new Ant("broken\none", antName, null, null, null);
+        ant.setParallelism(2);
+        project.getBuildersList().replace(ant);
+        build = r.buildAndAssertStatus(Result.FAILURE, project);
+        r.assertLogContains("[one]      [echo] first", build);
+
+        r.configRoundtrip(project);
+        assertEquals(2, project.getBuildersList().get(Ant.class).getParallelism());
+    }
+
+    @Test
+    void upToDate() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", """
+                <project default="dist">
+                  <target name="dist"><mkdir dir="dist"/><echo file="dist/out.txt">${v}</echo></target>
+                </project>
+                """));
+        Ant ant = new Ant("dist", antName, null, null, "v=1");
+        ant.setInputs("build.xml");
+        ant.setOutputs("dist/*.txt");
+        project.getBuildersList().add(ant);
+        FreeStyleBuild first = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.Ant_InputsChanged(), first);
+        String fingerprint = first.getAction(AntUpToDateAction.class).getSteps().get(0).getFingerprint();
+
+        FreeStyleBuild second = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.Ant_UpToDate(first.getFullDisplayName()), second);
+        r.assertLogNotContains("BUILD SUCCESSFUL", second);
+        AntUpToDateAction.Step step = second.getAction(AntUpToDateAction.class).getSteps().get(0);
+        assertEquals(fingerprint, step.getFingerprint());
+        assertEquals(first.getNumber(), step.getUpToDateWith());
+
+        second.getWorkspace().child("dist").deleteRecursive();
+        FreeStyleBuild third = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.Ant_OutputsMissing(second.getFullDisplayName(), "dist/*.txt"), third);
+        r.assertLogContains("BUILD SUCCESSFUL", third);
+
+        ant = new Ant("dist", antName, null, null, "v=2");
+        ant.setInputs("build.xml");
+        project.getBuildersList().replace(ant);
+        FreeStyleBuild fourth = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.Ant_InputsChanged(), fourth);
+
+        r.configRoundtrip(project);
+        assertEquals("build.xml", project.getBuildersList().get(Ant.class).getInputs());
+    }
+
+    @Test
+    void metrics() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", "<project default='a'><target name='a'/></project>"));
+        project.getBuildersList().add(new Ant("a", antName, null, null, null));
+        r.buildAndAssertSuccess(project);
+
+        AntMetrics.InMemoryRegistry registry = ExtensionList.lookupSingleton(AntMetrics.InMemoryRegistry.class);
+        assertEquals(1, registry.get("ant_builds_total", "installation", antName, "result", "success"));
+        String text = r.createWebClient().goTo("ant-metrics/", "text/plain").getWebResponse().getContentAsString();
+        assertThat(text, containsString("ant_builds_total{installation=\"" + antName + "\",result=\"success\"} 1\n"));
+        assertThat(text, containsString("ant_launch_seconds_count 1\n"));
+        assertThat(text, containsString("ant_join_seconds_count 1\n"));
+        assertThat(text, containsString("ant_preflight_seconds_count 1\n"));
+        assertThat(text, containsString("ant_annotated_lines_total "));
+        assertThat(text, containsString("ant_notes_total "));
+        assertThat(text, containsString("# TYPE ant_builds_total counter\n"));
+        assertThat(text, containsString("# TYPE ant_launch_seconds summary\n"));
+        assertThat(text, containsString("# TYPE ant_output_cache_hits_total counter\nant_output_cache_hits_total "));
+    }
+
+    @Test
+    void phases() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", "<project default='a'><target name='a'/></project>"));
+        project.getBuildersList().add(new Ant("a", antName, null, null, null));
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        List<AntPhaseAction.Invocation> invocations = build.getAction(AntPhaseAction.class).getInvocations();
+        assertEquals(1, invocations.size());
+        assertEquals("a", invocations.get(0).getStep());
+        List<String> phases = new ArrayList<>();
+        for (AntPhaseAction.Span span : invocations.get(0).getSpans()) {
+            phases.add(span.getPhase());
+        }
+        assertEquals(List.of("environment", "provisioning", "installation", "pre-flight", "arguments", "ant"), phases);
+        r.assertLogNotContains("[a] environment: ", build);
+        r.createWebClient().getPage(build);
+
+        AntPhaseAction.LOG = true;
+        try {
+            r.assertLogContains("[a] pre-flight: ", r.buildAndAssertSuccess(project));
+        } finally {
+            AntPhaseAction.LOG = false;
+        }
+    }
+
+    @Test
+    void adaptiveHeap() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", """
+                <project default="a">
+                  <property environment="env"/>
+                  <target name="a"><echo>opts=${env.ANT_OPTS}</echo></target>
+                </project>
+                """));
+        Ant ant = new Ant("a", antName, "-Dx=y", null, null);
+        ant.setAdaptiveHeap(true);
+        project.getBuildersList().add(ant);
+
+        FreeStyleBuild first = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.AntHeap_NoHistory(), first);
+        r.assertLogContains("opts=-Dx=y", first);
+        long peak = first.getAction(AntHeapAction.class).getSamples().get(0).getPeak();
+        assertTrue(peak > 0);
+
+        FreeStyleBuild second = r.buildAndAssertSuccess(project);
+        String xmx = AntHeap.size(List.of(peak), -1, "").getOptions().get(0);
+        r.assertLogContains("opts=" + xmx, second);
+        r.assertLogContains(" -Dx=y", second);
+
+        ant = new Ant("a", antName, "-Xmx256m", null, null);
+        ant.setAdaptiveHeap(true);
+        project.getBuildersList().replace(ant);
+        FreeStyleBuild third = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.AntHeap_UserSet(), third);
+        r.assertLogContains("opts=-Xmx256m", third);
+
+        r.configRoundtrip(project);
+        assertTrue(project.getBuildersList().get(Ant.class).isAdaptiveHeap());
+    }
+
+    @Test
+    void classDataSharing() throws Exception {
+        assumeTrue(System.getenv("JAVA_HOME") != null, "needs JAVA_HOME to find the JDK running Ant");
+        AntInstallation defaultAnt = configureDefaultAnt();
+        AntInstallation ant = new AntInstallation("cds", defaultAnt.getHome(), List.of(new AntClassDataSharing()));
+        r.get(DescriptorImpl.class).setInstallations(ant);
+        FreeStyleProject project = r.createFreeStyleProject();
+        project.setScm(new SingleFileSCM("build.xml", "<project default='a'><target name='a'><echo>hello</echo></target></project>"));
+        project.getBuildersList().add(new Ant("a", "cds", null, null, null));
+
+        FreeStyleBuild first = r.buildAndAssertSuccess(project);
+        r.assertLogContains(Messages.AntClassDataSharing_Created(), first);
+        r.assertLogContains("hello", first);
+
+        FreeStyleBuild second = r.buildAndAssertSuccess(project);
+        r.assertLogContains("with its class data sharing archive", second);
+        r.assertLogContains("hello", second);
+    }
+
+    @Test
+    void outputCache() throws Exception {
+        String antName = configureDefaultAnt().getName();
+        FreeStyleProject first = r.createFreeStyleProject();
+        FreeStyleProject second = r.createFreeStyleProject();
+        for (FreeStyleProject p : List.of(first, second)) {
+            p.setScm(new SingleFileSCM("build.xml", """
+                    <project default="dist">
+                      <target name="dist"><mkdir dir="dist"/><echo file="dist/out.txt">built</echo></target>
+                    </project>
+                    """));
+            Ant ant = new Ant("dist", antName, null, null, null);
+            ant.setInputs("build.xml");
+            ant.setOutputs("dist/");
+            ant.setCache(true);
+            p.getBuildersList().add(ant);
+        }
+
+        FreeStyleBuild b1 = r.buildAndAssertSuccess(first);
+        r.assertLogContains(Messages.Ant_CacheMiss(), b1);
+        r.assertLogContains("BUILD SUCCESSFUL", b1);
+        AntOutputCacheAction a1 = b1.getAction(AntOutputCacheAction.class);
+        assertEquals(0, a1.getHits());
+        assertTrue(a1.getBytesStored() > 0);
+
+        FreeStyleBuild b2 = r.buildAndAssertSuccess(second);
+        r.assertLogNotContains("BUILD SUCCESSFUL", b2);
+        AntOutputCacheAction a2 = b2.getAction(AntOutputCacheAction.class);
+        assertEquals(1, a2.getHits());
+        assertEquals(100, a2.getHitRate());
+        assertEquals("built", b2.getWorkspace().child("dist/out.txt").readToString());
+
+        r.configRoundtrip(second);
+        assertTrue(second.getBuildersList().get(Ant.class).isCache());
+    }
+
     @Test
     void testParameterExpansion() throws Exception {
         if (!Functions.isWindows()) {
@@ -368,6 +798,51 @@ class AntTest {
         r.assertLogContains("Unable to find build script", build);
     }
 
+    @Test
+    void installationByName() {
+        Ant.DescriptorImpl descriptor = r.jenkins.getDescriptorByType(Ant.DescriptorImpl.class);
+        AntInstallation a = new AntInstallation("a", "/a", JenkinsRule.NO_PROPERTIES);
+        AntInstallation b = new AntInstallation("b", "/b", JenkinsRule.NO_PROPERTIES);
+        descriptor.setInstallations(a, b, new AntInstallation("a", "/other", JenkinsRule.NO_PROPERTIES));
+        assertSame(a, descriptor.getInstallation("a"));
+        assertSame(b, descriptor.getInstallation("b"));
+        assertNull(descriptor.getInstallation("c"));
+        assertSame(b, new Ant("", "b", null, null, null).getAnt());
+        assertNull(new Ant("", null, null, null, null).getAnt());
+
+        AntInstallation c = new AntInstallation("c", "/c", JenkinsRule.NO_PROPERTIES);
+        descriptor.setInstallations(c);
+        assertNull(descriptor.getInstallation("a"));
+        assertSame(c, descriptor.getInstallation("c"));
+    }
+
+    @Test
+    void preFlight() throws Exception {
+        File home = new File(tmp, "ant");
+        File exe = new File(home, Functions.isWindows() ? "bin/ant.bat" : "bin/ant");
+        assertTrue(exe.getParentFile().mkdirs());
+        assertTrue(exe.createNewFile());
+        File moduleBuildFile = new File(tmp, "module/build.xml");
+        File workspaceBuildFile = new File(tmp, "build.xml");
+        assertTrue(workspaceBuildFile.createNewFile());
+
+        Ant.PreFlight.Result result = new Ant.PreFlight(home.getPath(), moduleBuildFile.getPath(), workspaceBuildFile.getPath()).call();
+        assertEquals(exe.getPath(), result.executable);
+        assertEquals(1, result.buildFile);
+
+        result = new Ant.PreFlight(null, workspaceBuildFile.getPath(), null).call();
+        assertNull(result.executable);
+        assertEquals(0, result.buildFile);
+
+        result = new Ant.PreFlight(new File(tmp, "missing").getPath(), moduleBuildFile.getPath(), null).call();
+        assertNull(result.executable);
+        assertEquals(-1, result.buildFile);
+        assertEquals("", result.javaVersion);
+
+        result = new Ant.PreFlight(null, workspaceBuildFile.getPath()).withJava(System.getProperty("java.home"), null).call();
+        assertTrue(Jars.canLoad(result.javaVersion), result.javaVersion);
+    }
+
     @Test
     @Issue("JENKINS-33712")
     void emptyParameterTest() throws Exception {
@@ -29,8 +29,10 @@ import org.htmlunit.html.HtmlPage;
 import hudson.console.ConsoleNote;
 import hudson.model.FreeStyleProject;
 import hudson.slaves.DumbSlave;
+import hudson.tasks._ant.AntPhaseAction;
 
 import java.io.File;
+import java.util.List;
 import java.util.logging.Level;
 
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
@@ -90,8 +92,12 @@ class AntWrapperTest {
             b.getLogText().writeRawLogTo(0, System.err);
             AntTest.assertHtmlLogContains(b, "<b class=ant-target>foo</b>");
             AntTest.assertHtmlLogContains(b, "<b class=ant-target>bar</b>");
+            List<AntPhaseAction.Span> spans = b.getAction(AntPhaseAction.class).getInvocations().get(0).getSpans();
+            assertEquals("provisioning", spans.get(0).getPhase());
+            assertEquals("installation", spans.get(1).getPhase());
             JenkinsRule.WebClient wc = j.createWebClient();
             HtmlPage c = wc.getPage(b, "console");
+            wc.waitForBackgroundJavaScript(5000);
             DomElement o = c.getElementById("console-outline");
             assertEquals(2, o.getByXPath(".//LI").size());
         });
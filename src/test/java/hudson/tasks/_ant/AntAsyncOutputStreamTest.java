@@ -0,0 +1,157 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntAsyncOutputStream} class.
+ */
+class AntAsyncOutputStreamTest {
+
+    @Test
+    void keepsOrder() throws Exception {
+        byte[] input = new byte[100000];
+        new Random(42).nextBytes(input);
+        Recording out = new Recording();
+        AntAsyncOutputStream async = new AntAsyncOutputStream(out, "test", 100, 30, 1);
+        Random random = new Random(42);
+        for (int off = 0; off < input.length; ) {
+            int len = Math.min(random.nextInt(250), input.length - off);
+            if (len == 1) {
+                async.write(input[off]);
+            } else {
+                async.write(input, off, len);
+            }
+            off += len;
+        }
+        async.close();
+        assertArrayEquals(input, out.toByteArray());
+        assertTrue(out.closed);
+        assertThrows(IOException.class, () -> async.write(1));
+    }
+
+    @Test
+    void coalescesWrites() throws Exception {
+        Recording out = new Recording();
+        AntAsyncOutputStream async = new AntAsyncOutputStream(out, "test", 64 * 1024, 4096, TimeUnit.MINUTES.toMillis(1));
+        byte[] line = "    [echo] hello\n".getBytes();
+        for (int i = 0; i < 1000; i++) {
+            async.write(line);
+        }
+        async.flush();
+        assertEquals(1000 * line.length, out.size());
+        assertTrue(out.writes <= 1000 * line.length / 4096 + 1, out.writes + " writes");
+        assertTrue(out.flushes >= 1);
+        async.close();
+    }
+
+    @Test
+    void writesAfterDelay() throws Exception {
+        Recording out = new Recording();
+        AntAsyncOutputStream async = new AntAsyncOutputStream(out, "test", 1024, 1024, 50);
+        async.write("hello\n".getBytes());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (out.flushes == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("hello\n", out.toString());
+        async.close();
+    }
+
+    @Test
+    void waitsOnlyWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recording out = new Recording() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException x) {
+                    throw new AssertionError(x);
+                }
+                super.write(b, off, len);
+            }
+        };
+        AntAsyncOutputStream async = new AntAsyncOutputStream(out, "test", 100, 10, 1);
+        // the log does not take anything, yet the buffer does
+        async.write(new byte[100]);
+        Thread writer = new Thread(() -> {
+            try {
+                async.write(new byte[100]);
+            } catch (IOException x) {
+                throw new AssertionError(x);
+            }
+        });
+        writer.start();
+        writer.join(200);
+        assertTrue(writer.isAlive(), "waits for room in the buffer");
+        release.countDown();
+        writer.join();
+        async.close();
+        assertEquals(200, out.size());
+    }
+
+    @Test
+    void failures() throws Exception {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        AntAsyncOutputStream async = new AntAsyncOutputStream(broken, "test", 100, 10, 1);
+        async.write(new byte[10]);
+        IOException x = assertThrows(IOException.class, async::flush);
+        assertEquals("broken", x.getCause().getMessage());
+        assertThrows(IOException.class, () -> async.write(1));
+        assertThrows(IOException.class, async::close);
+    }
+
+    @Test
+    void errors() throws Exception {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new AssertionError("broken");
+            }
+        };
+        AntAsyncOutputStream async = new AntAsyncOutputStream(broken, "test", 100, 10, 1);
+        async.write(new byte[10]);
+        // rather than waiting forever for a thread that is gone
+        IOException x = assertThrows(IOException.class, async::flush);
+        assertEquals("broken", x.getCause().getCause().getMessage());
+        assertThrows(IOException.class, async::close);
+    }
+
+    private static class Recording extends ByteArrayOutputStream {
+        int writes;
+        volatile int flushes;
+        boolean closed;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntClassDataSharing} class.
+ */
+class AntClassDataSharingTest {
+
+    @TempDir
+    private File tmp;
+
+    @Test
+    void feature() {
+        assertEquals(21, AntClassDataSharing.feature("21.0.4"));
+        assertEquals(17, AntClassDataSharing.feature("17"));
+        assertEquals(8, AntClassDataSharing.feature("1.8.0_292"));
+        assertEquals(22, AntClassDataSharing.feature("22-ea"));
+        assertEquals(-1, AntClassDataSharing.feature(""));
+    }
+
+    @Test
+    void userOptions() {
+        assertTrue(AntClassDataSharing.isConfigured("-Xmx1g -Xshare:off"));
+        assertTrue(AntClassDataSharing.isConfigured("-XX:SharedArchiveFile=/tmp/app.jsa"));
+        assertTrue(AntClassDataSharing.isConfigured("-XX:-AutoCreateSharedArchive"));
+        assertFalse(AntClassDataSharing.isConfigured("-Xmx1g -Dshare=-Xshare:off"));
+    }
+
+    @Test
+    void autoCreatedOnJava19AndLater() throws Exception {
+        File cache = new File(tmp, "cache");
+        String ant = ant("ant");
+        String jdk = jdk("jdk", "21.0.4");
+
+        AntClassDataSharing.Plan plan = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertTrue(plan.isCreating());
+        assertNull(plan.dump);
+        assertEquals(List.of("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + plan.archive), plan.getOptions());
+
+        // as the JVM would
+        write(new File(plan.archive), "archive");
+        new AntClassDataSharing.Finish(plan, 900).call();
+
+        AntClassDataSharing.Plan next = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertFalse(next.isCreating());
+        assertEquals(plan.archive, next.archive);
+        assertEquals(900, next.baseline);
+        assertEquals(plan.getOptions(), next.getOptions());
+    }
+
+    @Test
+    void dumpedAtExitOnJava13To18() throws Exception {
+        File cache = new File(tmp, "cache");
+        String ant = ant("ant");
+        String jdk = jdk("jdk", "17.0.2");
+
+        AntClassDataSharing.Plan plan = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertTrue(plan.isCreating());
+        assertEquals(List.of("-XX:ArchiveClassesAtExit=" + plan.dump), plan.getOptions());
+
+        // Ant failed before dumping anything
+        new AntClassDataSharing.Finish(plan, -1).call();
+        assertFalse(new File(plan.archive).exists());
+
+        write(new File(plan.dump), "archive");
+        new AntClassDataSharing.Finish(plan, -1).call();
+        assertFalse(new File(plan.dump).exists());
+
+        AntClassDataSharing.Plan next = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertFalse(next.isCreating());
+        assertEquals(-1, next.baseline);
+        assertEquals(List.of("-XX:SharedArchiveFile=" + plan.archive), next.getOptions());
+    }
+
+    @Test
+    void unsupportedBeforeJava13() throws Exception {
+        AntClassDataSharing.Plan plan = new AntClassDataSharing.Prepare(ant("ant"), jdk("jdk", "11.0.20")).invoke(new File(tmp, "cache"), null);
+        assertEquals(List.of(), plan.getOptions());
+        assertEquals("11.0.20", plan.getJavaVersion());
+    }
+
+    @Test
+    void recreatedWhenInstallationChanges() throws Exception {
+        File cache = new File(tmp, "cache");
+        String ant = ant("ant");
+        String jdk = jdk("jdk", "21.0.4");
+        AntClassDataSharing.Plan plan = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        write(new File(plan.archive), "archive");
+
+        write(new File(ant, "lib/ant-junit.jar"), "more tasks");
+        AntClassDataSharing.Plan next = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertTrue(next.isCreating());
+        assertNotEquals(plan.archive, next.archive);
+        assertFalse(new File(plan.archive).exists());
+
+        // another JDK gets its own archive, without touching the others
+        write(new File(next.archive), "archive");
+        AntClassDataSharing.Plan other = new AntClassDataSharing.Prepare(ant, jdk("jdk2", "21.0.4")).invoke(cache, null);
+        assertTrue(other.isCreating());
+        assertTrue(new File(next.archive).exists());
+    }
+
+    @Test
+    void concurrentDumpsAreKept() throws Exception {
+        File cache = new File(tmp, "cache");
+        String ant = ant("ant");
+        String jdk = jdk("jdk", "17.0.2");
+        AntClassDataSharing.Plan first = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        // the first run is still dumping when the second one starts
+        write(new File(first.dump), "partial");
+        AntClassDataSharing.Plan second = new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertTrue(second.isCreating());
+        assertNotEquals(first.dump, second.dump);
+        assertTrue(new File(first.dump).exists());
+
+        // but one left by a run killed long ago goes
+        assertTrue(new File(first.dump).setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+        new AntClassDataSharing.Prepare(ant, jdk).invoke(cache, null);
+        assertFalse(new File(first.dump).exists());
+    }
+
+    private String ant(String name) throws IOException {
+        File home = new File(tmp, name);
+        write(new File(home, "lib/ant.jar"), "classes");
+        write(new File(home, "lib/ant-launcher.jar"), "launcher");
+        return home.getPath();
+    }
+
+    private String jdk(String name, String version) throws IOException {
+        File home = new File(tmp, name);
+        write(new File(home, "release"), "JAVA_VERSION=\"" + version + "\"\n");
+        return home.getPath();
+    }
+
+    private static void write(File f, String content) throws IOException {
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content, StandardCharsets.UTF_8);
+    }
+}
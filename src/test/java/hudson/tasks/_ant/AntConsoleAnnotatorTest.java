@@ -0,0 +1,197 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.console.LineTransformationOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntConsoleAnnotator} class.
+ */
+class AntConsoleAnnotatorTest {
+
+    private static final byte[][] NOTES = {"[target]".getBytes(StandardCharsets.US_ASCII), "[success]".getBytes(StandardCharsets.US_ASCII), "[failure]".getBytes(StandardCharsets.US_ASCII)};
+
+    private static final String LOG = """
+            Buildfile: /tmp/ws/build.xml
+
+            init:
+                [mkdir] Created dir: /tmp/ws/build
+
+            compile:
+                [javac] Compiling 3 source files to /tmp/ws/build
+                [javac] Note: Some input files use unchecked or unsafe operations.
+
+            not a target:
+
+            x:y:
+            \r
+            compil\u00e9:\r
+            BUILD SUCCESSFUL
+            Total time: 1 second
+
+            BUILD FAILED\r
+            BUILD FAILED /tmp/ws/build.xml:12: oops
+
+            """;
+
+    @Test
+    void asciiCompatibleCharsets() {
+        assertTrue(AntConsoleAnnotator.isAsciiCompatible(StandardCharsets.UTF_8));
+        assertTrue(AntConsoleAnnotator.isAsciiCompatible(StandardCharsets.US_ASCII));
+        assertTrue(AntConsoleAnnotator.isAsciiCompatible(StandardCharsets.ISO_8859_1));
+        assertTrue(AntConsoleAnnotator.isAsciiCompatible(Charset.forName("ISO-8859-15")));
+        assertTrue(AntConsoleAnnotator.isAsciiCompatible(Charset.forName("windows-1252")));
+        assertFalse(AntConsoleAnnotator.isAsciiCompatible(StandardCharsets.UTF_16));
+        assertFalse(AntConsoleAnnotator.isAsciiCompatible(StandardCharsets.UTF_16LE));
+    }
+
+    @Test
+    void sameOutputAsDecodingAnnotator() throws IOException {
+        for (Charset cs : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, Charset.forName("windows-1252"), StandardCharsets.US_ASCII, StandardCharsets.UTF_16}) {
+            byte[] input = LOG.getBytes(cs);
+            assertArrayEquals(reference(input, cs), annotate(input, cs), cs.name());
+        }
+    }
+
+    @Test
+    void sameOutputForMalformedInput() throws IOException {
+        byte[] input = {'\n', (byte) 0xC3, ':', '\n', '\n', (byte) 0xE2, (byte) 0x82, ':', '\n', '\n', 'a', (byte) 0xFF, ':', '\r', '\n', 'B', 'U', 'I', 'L', 'D'};
+        for (Charset cs : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.US_ASCII, Charset.forName("windows-1252")}) {
+            assertArrayEquals(reference(input, cs), annotate(input, cs), cs.name());
+        }
+    }
+
+    @Test
+    void sameOutputForRandomInput() throws IOException {
+        byte[] alphabet = "ab: \r\n\n\nBUILD SUCCESSFULFAILED".getBytes(StandardCharsets.US_ASCII);
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            byte[] input = new byte[random.nextInt(400)];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextInt(10) == 0 ? (byte) (0x80 + random.nextInt(0x80)) : alphabet[random.nextInt(alphabet.length)];
+            }
+            assertArrayEquals(reference(input, StandardCharsets.UTF_8), annotate(input, StandardCharsets.UTF_8), "round " + round);
+        }
+    }
+
+    @Test
+    void listenerSeesTargetsAndOutcomes() throws IOException {
+        for (Charset cs : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.UTF_16}) {
+            List<String> events = new ArrayList<>();
+            AntConsoleAnnotator annotator = new AntConsoleAnnotator(OutputStream.nullOutputStream(), cs, NOTES, new AntConsoleAnnotator.Listener() {
+                @Override
+                public void targetStarted(String name, int line) {
+                    events.add(name + "@" + line);
+                }
+
+                @Override
+                public void outcome(boolean success, int line) {
+                    events.add((success ? "SUCCESS" : "FAILURE") + "@" + line);
+                }
+            });
+            annotator.write(LOG.getBytes(cs));
+            annotator.forceEol();
+            assertEquals(List.of("init@2", "compile@5", "x:y@11", "compil\u00e9@13", "SUCCESS@14", "FAILURE@17"), events, cs.name());
+        }
+    }
+
+    @Test
+    void longLinesPassedOnUnbuffered() throws IOException {
+        String longLine = "x".repeat(10000);
+        String log = LOG.replace("\ncompile:\n", "\n" + longLine + "\n\ncompile:\n") + longLine;
+        byte[] input = log.getBytes(StandardCharsets.UTF_8);
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<String> events = new ArrayList<>();
+            AntConsoleAnnotator annotator = new AntConsoleAnnotator(out, StandardCharsets.UTF_8, NOTES, new AntConsoleAnnotator.Listener() {
+                @Override
+                public void targetStarted(String name, int line) {
+                    events.add(name + "@" + line);
+                }
+
+                @Override
+                public void outcome(boolean success, int line) {
+                    events.add((success ? "SUCCESS" : "FAILURE") + "@" + line);
+                }
+            });
+            annotator.maxLineLength = 100;
+            for (int off = 0; off < input.length; ) {
+                int len = Math.min(random.nextInt(3000), input.length - off);
+                annotator.write(input, off, len);
+                off += len;
+            }
+            // the last line has no newline, yet all but the buffered prefix of it was passed on
+            assertTrue(out.size() > input.length - 100, "round " + round);
+            annotator.forceEol();
+            assertArrayEquals(reference(input, StandardCharsets.UTF_8), out.toByteArray(), "round " + round);
+            assertEquals(List.of("init@2", "compile@7", "x:y@13", "compil\u00e9@15", "SUCCESS@16", "FAILURE@19"), events, "round " + round);
+        }
+    }
+
+    @Test
+    void longLinesBufferedWhenUnlimited() throws IOException {
+        byte[] input = ("\n" + "x".repeat(1000) + ":\n").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AntConsoleAnnotator annotator = new AntConsoleAnnotator(out, StandardCharsets.UTF_8, NOTES, null);
+        annotator.maxLineLength = 0;
+        annotator.write(input);
+        annotator.forceEol();
+        assertArrayEquals(reference(input, StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    private static byte[] annotate(byte[] input, Charset charset) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AntConsoleAnnotator annotator = new AntConsoleAnnotator(out, charset, NOTES, null);
+        annotator.write(input);
+        annotator.forceEol();
+        return out.toByteArray();
+    }
+
+    private static byte[] reference(byte[] input, Charset charset) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DecodingAnnotator annotator = new DecodingAnnotator(out, charset);
+        annotator.write(input);
+        annotator.forceEol();
+        return out.toByteArray();
+    }
+
+    /** The line classification {@link AntConsoleAnnotator} used before it learned to work on bytes. */
+    private static final class DecodingAnnotator extends LineTransformationOutputStream {
+        private final OutputStream out;
+        private final Charset charset;
+        private boolean seenEmptyLine;
+
+        DecodingAnnotator(OutputStream out, Charset charset) {
+            this.out = out;
+            this.charset = charset;
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            String line = trimEOL(charset.decode(ByteBuffer.wrap(b, 0, len)).toString());
+            if (seenEmptyLine && line.endsWith(":") && line.indexOf(' ') < 0)
+                out.write(NOTES[0]);
+            if (line.equals("BUILD SUCCESSFUL"))
+                out.write(NOTES[1]);
+            if (line.equals("BUILD FAILED"))
+                out.write(NOTES[2]);
+            seenEmptyLine = line.isEmpty();
+            out.write(b, 0, len);
+        }
+    }
+}
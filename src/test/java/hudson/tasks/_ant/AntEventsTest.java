@@ -0,0 +1,189 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import hudson.FilePath;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Location;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.taskdefs.Echo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs {@link AntEventListener} inside an in-process Ant build and reads its output back with {@link AntEvents}.
+ */
+class AntEventsTest {
+
+    @TempDir
+    private File tmp;
+
+    @Test
+    void roundTrip() throws Exception {
+        File file = new File(tmp, "events.bin");
+        Project project = project(new AntEventListener(file.getPath()));
+        project.fireBuildStarted();
+        project.executeTarget("compile");
+        project.fireBuildFinished(null);
+
+        assertEquals(List.of(
+                "buildStarted",
+                "targetStarted compile",
+                "taskStarted echo",
+                "messageLogged " + Project.MSG_WARN,
+                "taskFinished echo false",
+                "targetFinished compile false",
+                "buildFinished null"), read(file));
+    }
+
+    @Test
+    void failure() throws Exception {
+        File file = new File(tmp, "events.bin");
+        Project project = project(new AntEventListener(file.getPath()));
+        project.fireBuildStarted();
+        project.fireBuildFinished(new BuildException("oops", new Location("/ws/build.xml", 12, 3)));
+
+        assertEquals(List.of("buildStarted", "buildFinished oops /ws/build.xml:12"), read(file));
+    }
+
+    @Test
+    void truncated() throws Exception {
+        File file = new File(tmp, "events.bin");
+        Project project = project(new AntEventListener(file.getPath()));
+        project.fireBuildStarted();
+        project.executeTarget("compile");
+        project.fireBuildFinished(null);
+        // Ant killed while writing the last event
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        assertEquals(List.of(
+                "buildStarted",
+                "targetStarted compile",
+                "taskStarted echo",
+                "messageLogged " + Project.MSG_WARN,
+                "taskFinished echo false",
+                "targetFinished compile false"), read(file));
+    }
+
+    @Test
+    void inPieces() throws Exception {
+        File file = new File(tmp, "events.bin");
+        Project project = project(new AntEventListener(file.getPath()));
+        project.fireBuildStarted();
+        project.executeTarget("compile");
+        project.fireBuildFinished(null);
+
+        // as a running build reads the file, a few bytes at a time
+        List<String> events = new ArrayList<>();
+        AntEvents.Parser parser = new AntEvents.Parser(handler(events));
+        byte[] data = Files.readAllBytes(file.toPath());
+        for (int i = 0; i < data.length; i += 3) {
+            parser.feed(data, i, Math.min(3, data.length - i));
+        }
+        assertEquals(read(file), events);
+    }
+
+    @Test
+    void tail() throws Exception {
+        File file = new File(tmp, "events.bin");
+        Project project = project(new AntEventListener(file.getPath()));
+        List<String> events = new ArrayList<>();
+        AntEvents.Tail tail = new AntEvents.Tail(new FilePath(file), handler(events));
+        project.fireBuildStarted();
+        project.executeTarget("compile");
+        // the target events are flushed as Ant runs
+        tail.poll();
+        assertEquals("targetFinished compile false", events.get(events.size() - 1));
+        project.fireBuildFinished(null);
+        tail.stop();
+        assertEquals("buildFinished null", events.get(events.size() - 1));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void noEventFile() throws Exception {
+        Project project = project(new AntEventListener(null));
+        project.fireBuildStarted();
+        project.executeTarget("compile");
+        project.fireBuildFinished(null);
+    }
+
+    private static Project project(AntEventListener listener) {
+        Project project = new Project();
+        project.init();
+        project.addBuildListener(listener);
+        Target target = new Target();
+        target.setName("compile");
+        target.setProject(project);
+        project.addTarget(target);
+        Echo echo = new Echo();
+        echo.setProject(project);
+        echo.setTaskName("echo");
+        echo.setOwningTarget(target);
+        echo.setMessage("hello");
+        target.addTask(echo);
+        return project;
+    }
+
+    private static List<String> read(File file) throws IOException {
+        List<String> events = new ArrayList<>();
+        try (InputStream in = new FileInputStream(file)) {
+            AntEvents.read(in, handler(events));
+        }
+        return events;
+    }
+
+    private static AntEvents.Handler handler(List<String> events) {
+        return new AntEvents.Handler() {
+            @Override
+            public void buildStarted(long time) {
+                events.add("buildStarted");
+            }
+
+            @Override
+            public void targetStarted(long time, String name) {
+                events.add("targetStarted " + name);
+            }
+
+            @Override
+            public void targetFinished(long time, String name, boolean failed) {
+                events.add("targetFinished " + name + " " + failed);
+            }
+
+            @Override
+            public void taskStarted(long time, String name) {
+                events.add("taskStarted " + name);
+            }
+
+            @Override
+            public void taskFinished(long time, String name, boolean failed) {
+                events.add("taskFinished " + name + " " + failed);
+            }
+
+            @Override
+            public void messageLogged(long time, int priority) {
+                if (priority <= Project.MSG_INFO) { // Ant itself logs at verbose and debug levels
+                    events.add("messageLogged " + priority);
+                }
+            }
+
+            @Override
+            public void buildFinished(long time, String error, String file, int line) {
+                events.add("buildFinished " + (error == null ? "null" : error + " " + file + ":" + line));
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import hudson.FilePath;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.security.MasterToSlaveCallable;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntExecutableCache} class.
+ */
+class AntExecutableCacheTest {
+
+    private static final AtomicInteger CALLS = new AtomicInteger();
+
+    private static final class Lookup extends MasterToSlaveCallable<String, IOException> {
+        private final String result;
+
+        Lookup(String result) {
+            this.result = result;
+        }
+
+        @Override
+        public String call() {
+            CALLS.incrementAndGet();
+            return result;
+        }
+    }
+
+    @Test
+    void cachesFoundExecutables() throws Exception {
+        AntExecutableCache cache = new AntExecutableCache(60000);
+        CALLS.set(0);
+        assertEquals("/ant/bin/ant", cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant")));
+        assertEquals("/ant/bin/ant", cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant")));
+        assertEquals(1, CALLS.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        assertEquals("/other/bin/ant", cache.resolve(FilePath.localChannel, "/other", new Lookup("/other/bin/ant")));
+        assertEquals(2, CALLS.get());
+
+        cache.invalidate(FilePath.localChannel);
+        cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant"));
+        assertEquals(3, CALLS.get());
+        cache.invalidateAll();
+        cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant"));
+        assertEquals(4, CALLS.get());
+    }
+
+    @Test
+    void missingExecutablesAreNotCached() throws Exception {
+        AntExecutableCache cache = new AntExecutableCache(60000);
+        CALLS.set(0);
+        assertNull(cache.resolve(FilePath.localChannel, "/ant", new Lookup(null)));
+        assertEquals("/ant/bin/ant", cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant")));
+        assertEquals(2, CALLS.get());
+    }
+
+    @Test
+    void disabled() throws Exception {
+        AntExecutableCache cache = new AntExecutableCache(0);
+        CALLS.set(0);
+        cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant"));
+        cache.resolve(FilePath.localChannel, "/ant", new Lookup("/ant/bin/ant"));
+        assertEquals(2, CALLS.get());
+        assertEquals(0, cache.getHits());
+    }
+}
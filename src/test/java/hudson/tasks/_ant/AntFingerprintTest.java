@@ -0,0 +1,107 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntFingerprint} class.
+ */
+class AntFingerprintTest {
+
+    @TempDir
+    private File tmp;
+
+    @Test
+    void changesWithInputsOnly() throws Exception {
+        File ws = workspace("ws");
+        String before = fingerprint(ws, "src/**/*.java, lib/*.jar", "dist");
+        assertEquals(before, fingerprint(ws, "src/**/*.java lib/*.jar", "dist"));
+
+        write(ws, "README", "not an input");
+        assertEquals(before, fingerprint(ws, "src/**/*.java, lib/*.jar", "dist"));
+
+        assertNotEquals(before, fingerprint(ws, "src/**/*.java, lib/*.jar", "dist docs"));
+        assertNotEquals(before, fingerprint(ws, "src/**/*.java", "dist"));
+
+        write(ws, "src/b/B.java", "class B { int x; }");
+        assertNotEquals(before, fingerprint(ws, "src/**/*.java, lib/*.jar", "dist"));
+        write(ws, "src/b/B.java", "class B {}");
+        assertEquals(before, fingerprint(ws, "src/**/*.java, lib/*.jar", "dist"));
+
+        write(ws, "build.xml", "<project default='dist'/>");
+        assertNotEquals(before, fingerprint(ws, "src/**/*.java, lib/*.jar", "dist"));
+    }
+
+    @Test
+    void sameInAnotherWorkspace() throws Exception {
+        assertEquals(fingerprint(workspace("ws"), "src/**", "dist"), fingerprint(workspace("ws@2"), "src/**", "dist"));
+    }
+
+    @Test
+    void noInputs() throws Exception {
+        File ws = workspace("ws");
+        assertEquals(fingerprint(ws, "", "dist"), fingerprint(ws, " , ", "dist"));
+        assertNotEquals(fingerprint(ws, "", "dist"), fingerprint(ws, "src/**", "dist"));
+    }
+
+    @Test
+    void missingOutputs() throws Exception {
+        File ws = workspace("ws");
+        write(ws, "dist/app.jar", "jar");
+        assertEquals(List.of(), new AntFingerprint.Missing("dist/*.jar, src").invoke(ws, null));
+        assertEquals(List.of("dist/*.war", "docs/**"), new AntFingerprint.Missing("dist/*.war dist/*.jar docs/**").invoke(ws, null));
+    }
+
+    @Test
+    void toolVersions() throws Exception {
+        File jdk = new File(tmp, "jdk");
+        write(jdk, "release", "IMPLEMENTOR=\"Eclipse Adoptium\"\nJAVA_VERSION=\"21.0.4\"\n");
+        assertEquals("21.0.4", AntFingerprint.Compute.javaVersion(jdk.getPath()));
+        assertEquals("", AntFingerprint.Compute.javaVersion(tmp.getPath()));
+        assertEquals("", AntFingerprint.Compute.javaVersion(null));
+
+        File ant = new File(tmp, "ant");
+        File jar = new File(ant, "lib/ant.jar");
+        jar.getParentFile().mkdirs();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("org/apache/tools/ant/version.txt"));
+            zip.write("VERSION=1.10.15\nDATE=August 25 2024\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        assertEquals("1.10.15", AntFingerprint.Compute.antVersion(ant.getPath()));
+        assertEquals("", AntFingerprint.Compute.antVersion(jdk.getPath()));
+
+        File ws = workspace("ws");
+        String none = new AntFingerprint.Compute("src/**", new File(ws, "build.xml").getPath(), "", null, null).invoke(ws, null);
+        assertNotEquals(none, new AntFingerprint.Compute("src/**", new File(ws, "build.xml").getPath(), "", ant.getPath(), jdk.getPath()).invoke(ws, null));
+    }
+
+    private File workspace(String name) throws IOException {
+        File ws = new File(tmp, name);
+        write(ws, "build.xml", "<project/>");
+        write(ws, "src/a/A.java", "class A {}");
+        write(ws, "src/b/B.java", "class B {}");
+        write(ws, "lib/x.jar", "x");
+        return ws;
+    }
+
+    private static String fingerprint(File ws, String inputs, String targets) throws Exception {
+        return new AntFingerprint.Compute(inputs, new File(ws, "build.xml").getPath(), "targets=" + targets, null, null).invoke(ws, null);
+    }
+
+    private static void write(File ws, String path, String content) throws IOException {
+        File f = new File(ws, path);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.Project;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntHeap} class.
+ */
+class AntHeapTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    private File tmp;
+
+    @Test
+    void sizedFromHighestPeak() {
+        AntHeap.Sizing sizing = AntHeap.size(List.of(100 * MB, 300 * MB, 200 * MB), 8192 * MB, "");
+        // 450 MB rounded up to 64 MB
+        assertEquals(List.of("-Xmx512m", "-XX:+UseSerialGC"), sizing.getOptions());
+
+        sizing = AntHeap.size(List.of(2000 * MB), -1, "-Dfoo=bar");
+        assertEquals(List.of("-Xmx3008m"), sizing.getOptions());
+
+        assertEquals(List.of("-Xmx64m", "-XX:+UseSerialGC"), AntHeap.size(List.of(MB), 8192 * MB, "").getOptions());
+    }
+
+    @Test
+    void limitedByAvailableMemory() {
+        AntHeap.Sizing sizing = AntHeap.size(List.of(2000 * MB), 1000 * MB, "");
+        assertEquals(List.of("-Xmx800m"), sizing.getOptions());
+        assertTrue(sizing.getDescription().contains("available memory"), sizing.getDescription());
+
+        assertEquals(List.of("-Xmx64m", "-XX:+UseSerialGC"), AntHeap.size(List.of(2000 * MB), 10 * MB, "").getOptions());
+    }
+
+    @Test
+    void availableMemory() throws Exception {
+        File meminfo = new File(tmp, "meminfo");
+        Files.writeString(meminfo.toPath(), "MemTotal:       16384000 kB\nMemFree:          512000 kB\nMemAvailable:    8192000 kB\n", StandardCharsets.US_ASCII);
+        // the page cache counts
+        assertEquals(8192000L * 1024, AntHeap.availableMemory(meminfo.toPath(), 512000L * 1024, 16384000L * 1024));
+        // but not beyond what is left of the limit of a container
+        assertEquals(1024 * MB, AntHeap.availableMemory(meminfo.toPath(), 1024 * MB, 4096 * MB));
+        // not Linux
+        assertEquals(512 * MB, AntHeap.availableMemory(new File(tmp, "missing").toPath(), 512 * MB, 16384 * MB));
+    }
+
+    @Test
+    void userOptionsWin() {
+        assertEquals(List.of(), AntHeap.size(List.of(100 * MB), -1, "-Xmx2g").getOptions());
+        assertEquals(Messages.AntHeap_UserSet(), AntHeap.size(List.of(100 * MB), -1, "-ea -XX:MaxRAMPercentage=50").getDescription());
+        assertEquals(List.of(), AntHeap.size(List.of(100 * MB), -1, "-XX:MaxHeapSize=1g").getOptions());
+        assertEquals(List.of("-Xmx192m"), AntHeap.size(List.of(100 * MB), -1, "-XX:+UseZGC").getOptions());
+        assertEquals(List.of("-Xmx192m", "-XX:+UseSerialGC"), AntHeap.size(List.of(100 * MB), -1, "-Dx=-Xmx1g-not").getOptions());
+    }
+
+    @Test
+    void userInitialHeapWins() {
+        // a maximum below the initial size would keep the JVM from starting
+        assertEquals(List.of(), AntHeap.size(List.of(100 * MB), -1, "-Xms2g").getOptions());
+        assertEquals(Messages.AntHeap_UserSet(), AntHeap.size(List.of(100 * MB), -1, "-ea -XX:InitialHeapSize=1g").getDescription());
+        assertEquals(List.of(), AntHeap.size(List.of(100 * MB), -1, "-XX:MinHeapSize=512m").getOptions());
+    }
+
+    @Test
+    void noHistory() {
+        AntHeap.Sizing sizing = AntHeap.size(List.of(), 8192 * MB, "");
+        assertEquals(List.of(), sizing.getOptions());
+        assertEquals(Messages.AntHeap_NoHistory(), sizing.getDescription());
+    }
+
+    @Test
+    void listenerReportsPeak() throws Exception {
+        File f = new File(tmp, "heap.txt");
+        new AntHeapListener(f.getPath()).buildFinished(new BuildEvent(new Project()));
+        long peak = Long.parseLong(Files.readString(f.toPath(), StandardCharsets.US_ASCII));
+        assertTrue(peak > 0 && peak <= Runtime.getRuntime().maxMemory(), Long.toString(peak));
+        new AntHeapListener(null).buildFinished(new BuildEvent(new Project()));
+    }
+}
@@ -0,0 +1,125 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntInstallerCache} class, with a directory standing in for the download site.
+ */
+class AntInstallerCacheTest {
+
+    @TempDir
+    File tmp;
+
+    private URL publish(String name, byte[] content, boolean checksum) throws Exception {
+        File site = new File(tmp, "site");
+        site.mkdirs();
+        File f = new File(site, name);
+        Files.write(f.toPath(), content);
+        if (checksum) {
+            String hash = Util.toHexString(MessageDigest.getInstance("SHA-512").digest(content));
+            Files.write(new File(site, name + ".sha512").toPath(), (hash.toUpperCase() + "  " + name + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        return f.toURI().toURL();
+    }
+
+    @Test
+    void downloadsOnceForManyAgents() throws Exception {
+        byte[] content = "apache-ant-1.10.15-bin.zip".getBytes(StandardCharsets.US_ASCII);
+        URL url = publish("apache-ant-1.10.15-bin.zip", content, true);
+        AntInstallerCache cache = new AntInstallerCache(new File(tmp, "cache"), 1024 * 1024);
+        ExecutorService agents = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<File>> fetches = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                fetches.add(agents.submit(() -> cache.fetch(url, TaskListener.NULL)));
+            }
+            for (Future<File> f : fetches) {
+                assertArrayEquals(content, Files.readAllBytes(f.get().toPath()));
+            }
+        } finally {
+            agents.shutdown();
+        }
+        assertEquals(1, cache.getDownloads());
+        assertEquals(99, cache.getHits());
+
+        // the index survives, and the cache works without the download site
+        Files.delete(new File(url.toURI()).toPath());
+        AntInstallerCache restarted = new AntInstallerCache(new File(tmp, "cache"), 1024 * 1024);
+        assertArrayEquals(content, Files.readAllBytes(restarted.fetch(url, TaskListener.NULL).toPath()));
+        assertEquals(0, restarted.getDownloads());
+    }
+
+    @Test
+    void checksumMismatch() throws Exception {
+        URL url = publish("apache-ant-1.10.15-bin.zip", "good".getBytes(StandardCharsets.US_ASCII), true);
+        Files.write(new File(url.toURI()).toPath(), "tampered".getBytes(StandardCharsets.US_ASCII));
+        AntInstallerCache cache = new AntInstallerCache(new File(tmp, "cache"), 1024 * 1024);
+        assertThrows(IOException.class, () -> cache.fetch(url, TaskListener.NULL));
+        assertEquals(0, cache.getDownloads());
+    }
+
+    @Test
+    void noChecksumPublished() throws Exception {
+        URL url = publish("apache-ant-1.10.15-bin.tar.gz", "archive".getBytes(StandardCharsets.US_ASCII), false);
+        AntInstallerCache cache = new AntInstallerCache(new File(tmp, "cache"), 1024 * 1024);
+        assertTrue(cache.fetch(url, TaskListener.NULL).isFile());
+        assertEquals(1, cache.getDownloads());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        AntInstallerCache cache = new AntInstallerCache(new File(tmp, "cache"), 250);
+        URL a = publish("a.zip", new byte[100], true);
+        URL b = publish("b.zip", new byte[100] /* same content as a.zip */, true);
+        URL c = publish("c.zip", "c".repeat(100).getBytes(StandardCharsets.US_ASCII), true);
+        URL d = publish("d.zip", "d".repeat(100).getBytes(StandardCharsets.US_ASCII), true);
+        File fa = cache.fetch(a, TaskListener.NULL);
+        // stored once
+        assertEquals(fa, cache.fetch(b, TaskListener.NULL));
+        File fc = cache.fetch(c, TaskListener.NULL);
+        fa.setLastModified(System.currentTimeMillis() - 60000);
+        fc.setLastModified(System.currentTimeMillis() - 30000);
+        File fd = cache.fetch(d, TaskListener.NULL);
+        assertFalse(fa.exists());
+        assertTrue(fc.exists());
+        assertTrue(fd.exists());
+        assertEquals(4, cache.getDownloads());
+        // b.zip was stored as a.zip, so it is gone as well
+        cache.fetch(b, TaskListener.NULL);
+        assertEquals(5, cache.getDownloads());
+    }
+
+    @Test
+    void evictedArchiveIsDownloadedAgain() throws Exception {
+        byte[] content = "archive".getBytes(StandardCharsets.US_ASCII);
+        URL url = publish("apache-ant-1.10.15-bin.zip", content, true);
+        AntInstallerCache cache = new AntInstallerCache(new File(tmp, "cache"), 1024 * 1024);
+        Files.delete(cache.fetch(url, TaskListener.NULL).toPath());
+        try (InputStream in = cache.open(url, TaskListener.NULL)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals(2, cache.getDownloads());
+    }
+}
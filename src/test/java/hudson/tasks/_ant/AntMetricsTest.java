@@ -0,0 +1,60 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntMetrics} class.
+ */
+class AntMetricsTest {
+
+    @Test
+    void inMemoryRegistry() {
+        AntMetrics.InMemoryRegistry r = new AntMetrics.InMemoryRegistry();
+        r.count("ant_builds_total", labels("result", "success", "installation", "1.10"), 1);
+        r.count("ant_builds_total", labels("installation", "1.10", "result", "success"), 2);
+        r.count("ant_builds_total", labels("installation", "1.10", "result", "failure"), 1);
+        r.count("ant_notes_total", labels(), 7);
+        r.time("ant_join_seconds", labels(), 1_500_000_000L);
+        r.time("ant_join_seconds", labels(), 500_000_000L);
+        r.time("ant_tool_resolution_seconds", labels("step", "withAnt"), 1_000L);
+
+        assertEquals(3, r.get("ant_builds_total", "result", "success", "installation", "1.10"));
+        assertEquals(0, r.get("ant_builds_total", "result", "aborted", "installation", "1.10"));
+
+        StringWriter w = new StringWriter();
+        r.writeTo(new PrintWriter(w));
+        assertEquals("""
+                # TYPE ant_builds_total counter
+                ant_builds_total{installation="1.10",result="failure"} 1
+                ant_builds_total{installation="1.10",result="success"} 3
+                # TYPE ant_notes_total counter
+                ant_notes_total 7
+                # TYPE ant_join_seconds summary
+                ant_join_seconds_count 2
+                ant_join_seconds_sum 2.000000
+                # TYPE ant_tool_resolution_seconds summary
+                ant_tool_resolution_seconds_count{step="withAnt"} 1
+                ant_tool_resolution_seconds_sum{step="withAnt"} 0.000001
+                """, w.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        assertEquals("ant_builds_total{installation=\"a\\\"b\\\\c\\nd\"}",
+                AntMetrics.InMemoryRegistry.series("ant_builds_total", labels("installation", "a\"b\\c\nd")));
+    }
+
+    private static Map<String, String> labels(String... kv) {
+        Map<String, String> r = new TreeMap<>();
+        for (int i = 0; i < kv.length; i += 2) {
+            r.put(kv[i], kv[i+1]);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,38 @@
+package hudson.tasks._ant;
+
+import hudson.MarkupText;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntOutcomeNote} class.
+ */
+class AntOutcomeNoteTest {
+
+    @Test
+    void testAnnotateOutcome() {
+        assertEquals("<span class=ant-outcome-success>BUILD SUCCESSFUL\n</span>", annotate(new AntOutcomeNote(true), "BUILD SUCCESSFUL\n"));
+        assertEquals("<span class=ant-outcome-failure>BUILD FAILED\n</span>", annotate(new AntOutcomeNote(false), "BUILD FAILED\n"));
+    }
+
+    @Test
+    void testAnnotateOldNote() {
+        assertEquals("<span class=ant-outcome-success>BUILD SUCCESSFUL\n</span>", annotate(new AntOutcomeNote(), "BUILD SUCCESSFUL\n"));
+        assertEquals("<span class=ant-outcome-failure>BUILD FAILED\n</span>", annotate(new AntOutcomeNote(), "BUILD FAILED\n"));
+        assertEquals("Total time: 1 second\n", annotate(new AntOutcomeNote(), "Total time: 1 second\n"));
+    }
+
+    @Test
+    void testAnnotateBaselineNote() throws Exception {
+        // written by the plugin before the note had fields, so the serialVersionUID has to stay
+        assertEquals("<span class=ant-outcome-failure>BUILD FAILED\n</span>", AntTargetNoteTest.annotateBaseline("baseline-outcome-note.log"));
+    }
+
+    private static String annotate(AntOutcomeNote note, String text) {
+        MarkupText markupText = new MarkupText(text);
+        note.annotate(new Object(), markupText, 0);
+        return markupText.toString(true);
+    }
+}
@@ -0,0 +1,93 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntOutputCache} class.
+ */
+class AntOutputCacheTest {
+
+    @TempDir
+    private File tmp;
+
+    @Test
+    void storeAndRestore() throws Exception {
+        File cache = new File(tmp, "cache");
+        File ws = new File(tmp, "ws");
+        write(ws, "dist/app.jar", "jar");
+        write(ws, "dist/lib/dep.jar", "dep");
+        write(ws, "build/App.class", "class");
+        String key = AntOutputCache.key("abc", "dist/");
+
+        assertEquals(-1L, new AntOutputCache.Restore(cache.getPath(), key).invoke(ws, null));
+        long size = new AntOutputCache.Store(cache.getPath(), key, "dist/", Long.MAX_VALUE).invoke(ws, null);
+        assertTrue(size > 0);
+        assertEquals(size, new File(cache, key + ".tgz").length());
+        assertEquals(1, cache.list().length);
+
+        File other = new File(tmp, "other");
+        assertEquals(size, new AntOutputCache.Restore(cache.getPath(), key).invoke(other, null));
+        assertEquals("jar", read(other, "dist/app.jar"));
+        assertEquals("dep", read(other, "dist/lib/dep.jar"));
+        assertFalse(new File(other, "build/App.class").exists());
+    }
+
+    @Test
+    void nothingToStore() throws Exception {
+        File cache = new File(tmp, "cache");
+        File ws = new File(tmp, "ws");
+        write(ws, "build.xml", "<project/>");
+        assertEquals(-1L, new AntOutputCache.Store(cache.getPath(), "k", "dist/**", Long.MAX_VALUE).invoke(ws, null));
+        assertEquals(0, cache.list().length);
+    }
+
+    @Test
+    void keyDependsOnOutputs() {
+        assertEquals(AntOutputCache.key("abc", "dist/*.jar, docs/"), AntOutputCache.key("abc", "dist/*.jar docs/"));
+        assertNotEquals(AntOutputCache.key("abc", "dist/*.jar"), AntOutputCache.key("abc", "dist/*.jar docs/"));
+        assertNotEquals(AntOutputCache.key("abc", "dist/"), AntOutputCache.key("abd", "dist/"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        File cache = new File(tmp, "cache");
+        write(cache, "old.tgz", "0123456789");
+        write(cache, "used.tgz", "0123456789");
+        write(cache, "new.tgz", "0123456789");
+        write(cache, "unrelated", "0123456789");
+        long now = System.currentTimeMillis();
+        new File(cache, "old.tgz").setLastModified(now - 3000);
+        new File(cache, "used.tgz").setLastModified(now - 1000);
+        new File(cache, "new.tgz").setLastModified(now - 2000);
+
+        AntOutputCache.evict(cache, new File(cache, "new.tgz"), 20);
+        assertFalse(new File(cache, "old.tgz").exists());
+        assertTrue(new File(cache, "used.tgz").exists());
+        assertTrue(new File(cache, "new.tgz").exists());
+
+        AntOutputCache.evict(cache, new File(cache, "new.tgz"), 10);
+        assertFalse(new File(cache, "used.tgz").exists());
+        assertTrue(new File(cache, "new.tgz").exists());
+        assertTrue(new File(cache, "unrelated").exists());
+    }
+
+    private static void write(File dir, String path, String content) throws IOException {
+        File f = new File(dir, path);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(File dir, String path) throws IOException {
+        return Files.readString(new File(dir, path).toPath(), StandardCharsets.UTF_8);
+    }
+}
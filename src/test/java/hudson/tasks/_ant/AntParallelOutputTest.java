@@ -0,0 +1,119 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntParallelOutput} class.
+ */
+class AntParallelOutputTest {
+
+    private static final byte[][] NOTES = {"[target]".getBytes(StandardCharsets.US_ASCII), "[success]".getBytes(StandardCharsets.US_ASCII), "[failure]".getBytes(StandardCharsets.US_ASCII)};
+
+    @Test
+    void linesStayWholeAndLabelled() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+        AntParallelOutput output = new AntParallelOutput(out, new Recording(events));
+        List<String> own = new ArrayList<>();
+        AntConsoleAnnotator a = output.lane("a", StandardCharsets.UTF_8, NOTES, new Recording(own));
+        AntConsoleAnnotator b = output.lane("b c", StandardCharsets.UTF_8, NOTES, null);
+
+        write(a, "Buildfile: build.xml\n\nfo");
+        write(b, "Buildfile: build.xml\n\nbar:\n    [echo] d");
+        write(a, "o:\n    [echo] abc\n");
+        write(b, "ef\n");
+        output.println("b c", "done", StandardCharsets.UTF_8);
+        write(a, "\nBUILD SUCCESSFUL\nTotal time: 0 seconds");
+        a.close();
+        b.close();
+
+        assertEquals("""
+                [a] Buildfile: build.xml
+                [a]\s
+                [b c] Buildfile: build.xml
+                [b c]\s
+                [b c] [target]bar:
+                [a] [target]foo:
+                [a]     [echo] abc
+                [b c]     [echo] def
+                [b c] done
+                [a]\s
+                [a] [success]BUILD SUCCESSFUL
+                [a] Total time: 0 seconds
+                """, out.toString(StandardCharsets.UTF_8));
+        assertEquals(List.of("bar@4", "foo@5", "true@10"), events);
+        assertEquals(List.of("foo@2", "true@5"), own);
+    }
+
+    @Test
+    void concurrentLanes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AntParallelOutput output = new AntParallelOutput(out, null);
+        int lanes = 4;
+        int lines = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < lanes; i++) {
+            AntConsoleAnnotator lane = output.lane("t" + i, StandardCharsets.UTF_8, NOTES, null);
+            String prefix = "t" + i;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < lines; j++) {
+                        // split each line across writes
+                        write(lane, prefix + " line ");
+                        write(lane, j + "\n");
+                    }
+                    lane.close();
+                } catch (Exception x) {
+                    throw new AssertionError(x);
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        String[] written = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(lanes * lines, written.length);
+        int[] next = new int[lanes];
+        for (String line : written) {
+            assertTrue(line.matches("\\[t(\\d)] t\\1 line \\d+"), line);
+            int lane = line.charAt(2) - '0';
+            assertEquals("[t" + lane + "] t" + lane + " line " + next[lane]++, line);
+        }
+    }
+
+    private static void write(AntConsoleAnnotator annotator, String s) throws IOException {
+        annotator.write(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Recording implements AntConsoleAnnotator.Listener {
+        private final List<String> events;
+
+        Recording(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void targetStarted(String name, int line) {
+            events.add(name + "@" + line);
+        }
+
+        @Override
+        public void outcome(boolean success, int line) {
+            events.add(success + "@" + line);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntProgressAction} class.
+ */
+class AntProgressActionTest {
+
+    private static final AntTargetEstimates ESTIMATES = AntTargetEstimates.EMPTY
+            .update(AntTargetHistory.totals(List.of(new AntTarget("init", 0, 1000), new AntTarget("compile", 1000, 6000), new AntTarget("test", 7000, 3000))));
+
+    @Test
+    void followsTheExpectedSequence() {
+        AntProgressAction a = new AntProgressAction();
+        a.expect(ESTIMATES, 0);
+        assertEquals(10000, a.remainingTime(0));
+        assertEquals(0, a.progress(0));
+
+        a.started("init", 0);
+        assertEquals(10000, a.remainingTime(0));
+        assertEquals(9500, a.remainingTime(500));
+        // running over its estimate does not make the rest any shorter
+        assertEquals(9000, a.remainingTime(2000));
+
+        a.started("compile", 2000);
+        assertEquals(9000, a.remainingTime(2000));
+        assertEquals(6000, a.remainingTime(5000));
+        assertEquals(50, a.progress(5500));
+
+        // not in the sequence: only the targets after the last known one are left
+        a.started("javadoc", 8000);
+        assertEquals(3000, a.remainingTime(8000));
+
+        a.started("test", 9000);
+        assertEquals(1000, a.remainingTime(11000));
+        a.outcome(true, 0);
+        assertEquals(0, a.remainingTime(12000));
+        assertEquals(99, a.progress(12000));
+    }
+
+    @Test
+    void nothingToGoBy() {
+        AntProgressAction a = new AntProgressAction();
+        a.expect(AntTargetEstimates.EMPTY, 0);
+        a.started("init", 0);
+        assertEquals(-1, a.remainingTime(0));
+        assertEquals(-1, a.progress(0));
+    }
+}
@@ -0,0 +1,82 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import hudson.tasks.Ant;
+import hudson.tasks.Ant.AntInstallation;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolInstallerDescriptor;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Integration test for the {@link AntProvisioner} class.
+ */
+@WithJenkins
+class AntProvisionerTest {
+
+    private static final AtomicInteger INSTALLS = new AtomicInteger();
+
+    @Test
+    void installsOnConnect(JenkinsRule r) throws Exception {
+        INSTALLS.set(0);
+        AntInstallation onConnect = new AntInstallation("onConnect", "", List.of(new InstallSourceProperty(List.of(new CountingInstaller())), new AntInstallOnConnect()));
+        AntInstallation lazy = new AntInstallation("lazy", "", List.of(new InstallSourceProperty(List.of(new CountingInstaller()))));
+        r.jenkins.getDescriptorByType(Ant.DescriptorImpl.class).setInstallations(onConnect, lazy);
+
+        DumbSlave agent = r.createOnlineSlave();
+        assertEquals(Map.of("onConnect", AntProvisioner.Status.READY), awaitStatus(agent));
+        assertEquals(1, INSTALLS.get());
+
+        // nothing to do once installed
+        AntProvisioner.get().provisionAll();
+        AntProvisioner.get().await(agent, onConnect, TaskListener.NULL);
+        assertEquals(1, INSTALLS.get());
+        r.createWebClient().getPage(agent.toComputer(), "ant-installations");
+    }
+
+    private static Map<String, AntProvisioner.Status> awaitStatus(Node node) throws InterruptedException {
+        while (true) {
+            Map<String, AntProvisioner.Status> status = AntProvisioner.get().getStatus(node);
+            if (!status.isEmpty() && !status.containsValue(AntProvisioner.Status.QUEUED) && !status.containsValue(AntProvisioner.Status.INSTALLING)) {
+                return status;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    public static class CountingInstaller extends ToolInstaller {
+        CountingInstaller() {
+            super(null);
+        }
+
+        @Override
+        public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws IOException, InterruptedException {
+            INSTALLS.incrementAndGet();
+            FilePath home = preferredLocation(tool, node);
+            home.child("bin/ant").write("", "UTF-8");
+            return home;
+        }
+
+        @TestExtension
+        public static class DescriptorImpl extends ToolInstallerDescriptor<CountingInstaller> {
+            @Override
+            public boolean isApplicable(Class<? extends ToolInstallation> toolType) {
+                return toolType == AntInstallation.class;
+            }
+        }
+    }
+}
@@ -57,6 +57,8 @@ public class AntTargetAnnotationTest {
         AntTargetNote.ENABLED = true;
         WebClient wc = r.createWebClient();
         HtmlPage c = wc.getPage(b, "console");
+        // the outline is filled in animation frames
+        wc.waitForBackgroundJavaScript(5000);
         System.out.println(c.asNormalizedText());
         DomElement o = c.getElementById("console-outline");
 
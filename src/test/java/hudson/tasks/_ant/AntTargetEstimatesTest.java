@@ -0,0 +1,35 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link AntTargetEstimates} class.
+ */
+class AntTargetEstimatesTest {
+
+    @Test
+    void movingAverage() {
+        AntTargetEstimates e = AntTargetEstimates.EMPTY;
+        assertTrue(e.isEmpty());
+        assertEquals(-1, e.getDuration("compile"));
+
+        e = e.update(AntTargetHistory.totals(List.of(new AntTarget("init", 0, 100), new AntTarget("compile", 100, 1000))));
+        assertEquals(List.of("init", "compile"), e.getSequence());
+        assertEquals(100, e.getDuration("init"));
+        assertEquals(1000, e.getDuration("compile"));
+
+        e = e.update(AntTargetHistory.totals(List.of(new AntTarget("init", 0, 200), new AntTarget("compile", 200, 2000), new AntTarget("test", 2200, 500), new AntTarget("init", 2700, 100))));
+        // a target running more than once counts once, with its total
+        assertEquals(List.of("init", "compile", "test"), e.getSequence());
+        assertEquals(Math.round(0.3 * 300 + 0.7 * 100), e.getDuration("init"));
+        assertEquals(Math.round(0.3 * 2000 + 0.7 * 1000), e.getDuration("compile"));
+        assertEquals(500, e.getDuration("test"));
+
+        e = e.update(AntTargetHistory.totals(List.of(new AntTarget("test", 0, 500))));
+        assertEquals(-1, e.getDuration("compile"));
+    }
+}
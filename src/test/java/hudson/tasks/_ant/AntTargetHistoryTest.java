@@ -0,0 +1,116 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntTargetHistory} class.
+ */
+class AntTargetHistoryTest {
+
+    @TempDir
+    private File dir;
+
+    @Test
+    void appendAndRead() throws IOException {
+        assertTrue(AntTargetHistory.read(dir).isEmpty());
+        AntTargetHistory.append(dir, 1, true, List.of(new AntTarget("init", 0, 100), new AntTarget("compile", 100, 1000), new AntTarget("init", 1100, 50)));
+        AntTargetHistory.append(dir, 2, false, List.of(new AntTarget("init", 0, 120), new AntTarget("test", 120, 3000)));
+        AntTargetHistory h = AntTargetHistory.read(dir);
+        assertEquals(List.of("init", "compile", "test"), h.getTargetNames());
+        List<AntTargetHistory.Sample> init = h.getSamples("init");
+        assertEquals(2, init.size());
+        assertEquals(1, init.get(0).getNumber());
+        assertEquals(150, init.get(0).getDuration());
+        assertTrue(init.get(0).isSuccess());
+        assertEquals(120, init.get(1).getDuration());
+        assertFalse(init.get(1).isSuccess());
+        assertEquals(1, h.getSamples("test").size());
+        assertTrue(h.getSamples("javadoc").isEmpty());
+        // fixed size records after a header
+        assertEquals(4 + 4 * AntTargetHistory.RECORD_SIZE, new File(dir, AntTargetHistory.FILE_NAME).length());
+    }
+
+    @Test
+    void estimates() throws IOException {
+        assertTrue(AntTargetHistory.read(dir).estimates().isEmpty());
+        AntTargetHistory.append(dir, 1, true, List.of(new AntTarget("init", 0, 100), new AntTarget("compile", 100, 1000)));
+        AntTargetHistory.append(dir, 2, true, List.of(new AntTarget("init", 0, 200), new AntTarget("compile", 200, 2000), new AntTarget("init", 2200, 100)));
+        // failed builds do not count
+        AntTargetHistory.append(dir, 3, false, List.of(new AntTarget("init", 0, 5000), new AntTarget("test", 5000, 1000)));
+        AntTargetEstimates e = AntTargetHistory.read(dir).estimates();
+        assertEquals(List.of("init", "compile"), e.getSequence());
+        assertEquals(Math.round(0.3 * 300 + 0.7 * 100), e.getDuration("init"));
+        assertEquals(Math.round(0.3 * 2000 + 0.7 * 1000), e.getDuration("compile"));
+        assertEquals(-1, e.getDuration("test"));
+    }
+
+    @Test
+    void namesAreWrittenOnce() throws IOException {
+        File names = new File(dir, AntTargetHistory.NAMES_FILE_NAME);
+        AntTargetHistory.append(dir, 1, true, List.of(new AntTarget("compile", 0, 1000)));
+        long length = names.length();
+        for (int i = 2; i < 100; i++) {
+            AntTargetHistory.append(dir, i, true, List.of(new AntTarget("compile", 0, 1000)));
+        }
+        assertEquals(length, names.length());
+        assertEquals(99, AntTargetHistory.read(dir).getSamples("compile").size());
+    }
+
+    @Test
+    void partialWritesAreIgnored() throws IOException {
+        AntTargetHistory.append(dir, 1, true, List.of(new AntTarget("compile", 0, 1000)));
+        File records = new File(dir, AntTargetHistory.FILE_NAME);
+        File names = new File(dir, AntTargetHistory.NAMES_FILE_NAME);
+        try (RandomAccessFile f = new RandomAccessFile(records, "rw")) {
+            f.setLength(f.length() + 7);
+        }
+        try (RandomAccessFile f = new RandomAccessFile(names, "rw")) {
+            f.seek(f.length());
+            f.write(new byte[] {0, 9, 't', 'e'});
+        }
+        assertEquals(1, AntTargetHistory.read(dir).getSamples("compile").size());
+        AntTargetHistory.append(dir, 2, true, List.of(new AntTarget("test", 0, 500)));
+        AntTargetHistory h = AntTargetHistory.read(dir);
+        assertEquals(List.of("compile", "test"), h.getTargetNames());
+        assertEquals(500, h.getSamples("test").get(0).getDuration());
+        assertEquals(4 + 2 * AntTargetHistory.RECORD_SIZE, records.length());
+    }
+
+    @Test
+    void unknownFormat() throws IOException {
+        Files.write(new File(dir, AntTargetHistory.FILE_NAME).toPath(), new byte[] {0, 0, 0, 9});
+        assertThrows(IOException.class, () -> AntTargetHistory.read(dir));
+    }
+
+    @Test
+    void regressions() throws IOException {
+        long[] durations = {10000, 10500, 9800, 10200, 9900};
+        for (int i = 0; i < durations.length; i++) {
+            AntTargetHistory.append(dir, i + 1, true, List.of(new AntTarget("compile", 0, durations[i]), new AntTarget("test", 0, 100)));
+        }
+        // failed builds are not part of the baseline
+        AntTargetHistory.append(dir, 6, false, List.of(new AntTarget("compile", 0, 60000)));
+        AntTargetHistory h = AntTargetHistory.read(dir);
+
+        assertTrue(h.regressions(7, List.of(new AntTarget("compile", 0, 10600), new AntTarget("test", 0, 100))).isEmpty());
+        List<AntTargetHistory.Regression> r = h.regressions(7, List.of(new AntTarget("compile", 0, 12000), new AntTarget("test", 0, 900), new AntTarget("javadoc", 0, 99999)));
+        assertEquals(1, r.size());
+        assertEquals("compile", r.get(0).getTarget());
+        assertEquals(12000, r.get(0).getDuration());
+        assertEquals(10080, r.get(0).getMean());
+        assertEquals(5, r.get(0).getBuilds());
+        // too few builds before it
+        assertTrue(h.regressions(5, List.of(new AntTarget("compile", 0, 60000))).isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit test for the {@link AntTargetIndex} class.
+ */
+class AntTargetIndexTest {
+
+    private static final byte[][] NOTES = {"[target]".getBytes(StandardCharsets.US_ASCII), "[success]".getBytes(StandardCharsets.US_ASCII), "[failure]".getBytes(StandardCharsets.US_ASCII)};
+
+    @TempDir
+    File dir;
+
+    @Test
+    void offsetsAndLines() throws IOException {
+        File log = new File(dir, "log");
+        File index = new File(dir, AntTargetIndex.FILE_NAME);
+        try (OutputStream logger = new FileOutputStream(log)) {
+            logger.write("Started by user\nBuilding in workspace\n".getBytes(StandardCharsets.UTF_8));
+            for (String target : new String[] {"init", "compile"}) {
+                AntTargetIndex.Writer writer = new AntTargetIndex.Writer(index, log, logger);
+                AntConsoleAnnotator annotator = new AntConsoleAnnotator(logger, StandardCharsets.UTF_8, NOTES, writer);
+                annotator.write(("Buildfile: build.xml\n\n" + target + ":\n    [echo] hello\n\nBUILD SUCCESSFUL\n").getBytes(StandardCharsets.UTF_8));
+                annotator.forceEol();
+                writer.close();
+                // output of another build step, which the next Ant step counts from the last record on
+                logger.write("Archiving artifacts\n".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        List<AntTargetIndex.Entry> entries = AntTargetIndex.read(index);
+        assertEquals(2, entries.size());
+        assertEquals("init", entries.get(0).getName());
+        assertEquals(5, entries.get(0).getLine());
+        assertEquals("compile", entries.get(1).getName());
+        assertEquals(12, entries.get(1).getLine());
+
+        List<String> lines = Files.readAllLines(log.toPath(), StandardCharsets.UTF_8);
+        try (RandomAccessFile raf = new RandomAccessFile(log, "r")) {
+            for (AntTargetIndex.Entry e : entries) {
+                raf.seek(e.getOffset());
+                String line = raf.readLine();
+                assertEquals("[target]" + e.getName() + ":", line);
+                assertEquals(line, lines.get(e.getLine() - 1));
+            }
+        }
+    }
+
+    @Test
+    void ranges() throws IOException {
+        File log = new File(dir, "log");
+        File index = new File(dir, AntTargetIndex.FILE_NAME);
+        try (OutputStream logger = new FileOutputStream(log)) {
+            logger.write("Started by user\n".getBytes(StandardCharsets.UTF_8));
+            AntTargetIndex.Writer writer = new AntTargetIndex.Writer(index, log, logger);
+            AntConsoleAnnotator annotator = new AntConsoleAnnotator(logger, StandardCharsets.UTF_8, NOTES, writer);
+            annotator.write("Buildfile: build.xml\n\ninit:\n    [echo] one\n\ncompile:\n    [echo] two\n\nBUILD SUCCESSFUL\n".getBytes(StandardCharsets.UTF_8));
+            annotator.forceEol();
+            annotator.write("Buildfile: build.xml\n\ntest:\n    [echo] three\n".getBytes(StandardCharsets.UTF_8));
+            annotator.forceEol();
+            writer.close();
+            logger.write("Finished: FAILURE\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<AntTargetIndex.Entry> entries = AntTargetIndex.read(index);
+        assertEquals(3, entries.size());
+        assertEquals("[target]init:\n    [echo] one\n\n", range(log, entries.get(0)));
+        assertEquals("[target]compile:\n    [echo] two\n\n", range(log, entries.get(1)));
+        // Ant stopped without an outcome, so the output of the last target runs to the end of the log
+        assertEquals(-1, entries.get(2).getEnd());
+        assertEquals("[target]test:\n    [echo] three\nFinished: FAILURE\n", range(log, entries.get(2)));
+
+        // the same ranges once the log is compressed
+        File gz = new File(dir, "log.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gz))) {
+            Files.copy(log.toPath(), out);
+        }
+        for (AntTargetIndex.Entry e : entries) {
+            assertEquals(range(log, e), range(gz, e));
+        }
+    }
+
+    private static String range(File log, AntTargetIndex.Entry e) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AntTargetIndex.writeRange(log, e.getOffset(), e.getEnd(), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void truncatedIndex() throws IOException {
+        File log = new File(dir, "log");
+        File index = new File(dir, AntTargetIndex.FILE_NAME);
+        try (OutputStream logger = new FileOutputStream(log)) {
+            AntTargetIndex.Writer writer = new AntTargetIndex.Writer(index, log, logger);
+            writer.targetStarted("init", 0);
+            writer.targetStarted("compile", 3);
+            writer.close();
+        }
+        byte[] data = Files.readAllBytes(index.toPath());
+        Files.write(index.toPath(), Arrays.copyOf(data, data.length - 2));
+        List<AntTargetIndex.Entry> entries = AntTargetIndex.read(index);
+        assertEquals(1, entries.size());
+        assertEquals("init", entries.get(0).getName());
+        assertEquals(-1, entries.get(0).getEnd());
+    }
+
+    @Test
+    void noIndex() throws IOException {
+        assertTrue(AntTargetIndex.read(new File(dir, "missing")).isEmpty());
+    }
+}
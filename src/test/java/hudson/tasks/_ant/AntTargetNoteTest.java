@@ -1,9 +1,19 @@
 package hudson.tasks._ant;
 
 import hudson.MarkupText;
+import hudson.console.ConsoleNote;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,12 +47,75 @@ class AntTargetNoteTest {
         assertEquals("<b class=ant-target>TEST:TARGET</b>:", annotate("TEST:TARGET:"));
     }
 
+    @Test
+    void testAnnotateTargetWithEol() {
+        assertEquals("<b class=ant-target>TARGET</b>:\r\n", annotate("TARGET:\r\n"));
+    }
+
+    @Test
+    void testAnnotateLabelledTarget() {
+        MarkupText markupText = new MarkupText("[a b] TARGET:\n");
+        new AntTargetNote().annotate(new Object(), markupText, 6);
+        assertEquals("[a b] <b class=ant-target>TARGET</b>:\n", markupText.toString(true));
+    }
+
+    @Test
+    void testAnnotateOldNote() {
+        for (String line : new String[] {"TARGET:", "TEST:TARGET:\n", "TARGET: and more\n"}) {
+            MarkupText markupText = new MarkupText(line);
+            new AntTargetNote(false).annotate(new Object(), markupText, 0);
+            int colon = line.lastIndexOf(':');
+            assertEquals("<b class=ant-target>" + line.substring(0, colon) + "</b>" + line.substring(colon), markupText.toString(true));
+        }
+    }
+
+    @Test
+    void testAnnotateBaselineNote() throws Exception {
+        // written by the plugin before the note had fields, so the serialVersionUID has to stay
+        assertEquals("<b class=ant-target>compile</b>:\n", annotateBaseline("baseline-target-note.log"));
+    }
+
     @Test
     void testDisabled() {
         AntTargetNote.ENABLED = false;
         assertEquals("TARGET:", annotate("TARGET:"));
     }
 
+    /**
+     * Reads the note at the start of a line of a build log, as {@link ConsoleNote} encodes it, and annotates the rest of the line.
+     * The class descriptor of {@link ConsoleNote} itself is taken from the running core, as it is not what the fixtures are about.
+     */
+    @SuppressWarnings("unchecked")
+    static String annotateBaseline(String resource) throws Exception {
+        String line;
+        try (InputStream in = AntTargetNoteTest.class.getResourceAsStream(resource)) {
+            line = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String preamble = "\u001B[8mha:";
+        String postamble = "\u001B[0m";
+        int end = line.indexOf(postamble);
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(line.substring(preamble.length(), end))));
+        int size = data.readInt();
+        if (size < 0) {
+            // a MAC
+            data.skipNBytes(-size);
+            size = data.readInt();
+        }
+        ConsoleNote<Object> note;
+        try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(data.readNBytes(size)))) {
+            @Override
+            protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+                ObjectStreamClass d = super.readClassDescriptor();
+                return d.getName().equals(ConsoleNote.class.getName()) ? ObjectStreamClass.lookup(ConsoleNote.class) : d;
+            }
+        }) {
+            note = (ConsoleNote<Object>) ois.readObject();
+        }
+        MarkupText markupText = new MarkupText(line.substring(end + postamble.length()));
+        note.annotate(new Object(), markupText, 0);
+        return markupText.toString(true);
+    }
+
     private static String annotate(String text) {
         MarkupText markupText = new MarkupText(text);
         new AntTargetNote().annotate(new Object(), markupText, 0);
@@ -0,0 +1,33 @@
+package hudson.tasks._ant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the {@link Jars} class.
+ */
+class JarsTest {
+
+    @Test
+    void requiredJava() {
+        int required = Jars.getRequiredJava();
+        assertTrue(required >= 8 && required <= Runtime.version().feature(), String.valueOf(required));
+        assertTrue(Jars.canLoad(System.getProperty("java.version")));
+        assertFalse(Jars.canLoad(""));
+        assertFalse(Jars.canLoad("1.7.0_80"));
+    }
+
+    @Test
+    void javaVersion() {
+        String home = System.getProperty("java.home");
+        String version = Jars.javaVersion(home, null);
+        assertEquals(Runtime.version().feature(), AntClassDataSharing.feature(version));
+        // as the launcher scripts find it without JAVA_HOME
+        assertEquals(version, Jars.javaVersion(null, "/nonexistent" + File.pathSeparator + new File(home, "bin")));
+        assertEquals("", Jars.javaVersion(null, "/nonexistent"));
+    }
+}